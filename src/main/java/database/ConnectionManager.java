@@ -0,0 +1,261 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps SQLite connections open for the lifetime of the app instead of reopening per query.
+// There is one writer connection, used by one caller at a time, and a bounded pool of
+// read-only connections that are opened on demand. In WAL mode readers never wait for the writer.
+// Each connection keeps its own cache of prepared statements.
+public class ConnectionManager {
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+    private static final int STATEMENT_CACHE_SIZE = 32;
+
+    // Work to run with a borrowed connection; the connection must not be closed by the work
+    public interface SqlWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    private final String url;
+    private final ConnectionProfile profile;
+    private final int maxReaders;
+
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private Connection writer;
+    private final BlockingQueue<Connection> idleReaders;
+    private final AtomicInteger openReaders = new AtomicInteger();
+    private volatile boolean closed;
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+    // Metrics
+    private final AtomicLong opens = new AtomicLong();
+    private final AtomicLong openNanos = new AtomicLong();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong borrowNanos = new AtomicLong();
+    private final AtomicLong statementHits = new AtomicLong();
+    private final AtomicLong statementMisses = new AtomicLong();
+
+    public ConnectionManager(String url, ConnectionProfile profile, int maxReaders) {
+        this.url = url;
+        this.profile = profile;
+        this.maxReaders = maxReaders;
+        this.idleReaders = new ArrayBlockingQueue<>(maxReaders);
+    }
+
+    // Runs work on a read-only connection from the pool
+    public <T> T read(SqlWork<T> work) throws SQLException {
+        Connection conn = borrowReader();
+        try {
+            return work.run(conn);
+        } finally {
+            returnReader(conn);
+        }
+    }
+
+    // Runs work on the writer connection in autocommit mode
+    public <T> T write(SqlWork<T> work) throws SQLException {
+        Connection conn = borrowWriter();
+        try {
+            return work.run(conn);
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    // Runs work on the writer connection as one transaction, rolled back if the work fails
+    public <T> T transaction(SqlWork<T> work) throws SQLException {
+        return write(conn -> {
+            conn.setAutoCommit(false);
+            try {
+                T result = work.run(conn);
+                conn.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        });
+    }
+
+    // Returns the cached statement for the SQL on a connection borrowed through read/write/transaction.
+    // The statement must not be closed by the caller.
+    public PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        return statementCache(conn).prepare(sql);
+    }
+
+    public PreparedStatement prepareWithGeneratedKeys(Connection conn, String sql) throws SQLException {
+        return statementCache(conn).prepareWithGeneratedKeys(sql);
+    }
+
+    private StatementCache statementCache(Connection conn) throws SQLException {
+        StatementCache cache = statementCaches.get(conn);
+        if (cache == null) {
+            throw new SQLException("Connection is not managed by this ConnectionManager");
+        }
+        return cache;
+    }
+
+    private Connection borrowWriter() throws SQLException {
+        long start = System.nanoTime();
+        writerLock.lock();
+        try {
+            checkOpen();
+            if (writer == null) {
+                writer = open(false);
+            }
+        } catch (SQLException | RuntimeException e) {
+            writerLock.unlock();
+            throw e;
+        }
+        recordBorrow(start);
+        return writer;
+    }
+
+    private Connection borrowReader() throws SQLException {
+        long start = System.nanoTime();
+        checkOpen();
+
+        Connection conn = idleReaders.poll();
+        if (conn == null) {
+            // Open another reader if the pool is not full yet, otherwise wait for one to come back
+            if (openReaders.incrementAndGet() <= maxReaders) {
+                try {
+                    conn = open(true);
+                } catch (SQLException | RuntimeException e) {
+                    openReaders.decrementAndGet();
+                    throw e;
+                }
+            } else {
+                openReaders.decrementAndGet();
+                try {
+                    conn = idleReaders.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection", e);
+                }
+                if (conn == null) {
+                    throw new SQLException("Timed out waiting for a database connection");
+                }
+            }
+        }
+
+        recordBorrow(start);
+        return conn;
+    }
+
+    private void returnReader(Connection conn) {
+        if (closed || !idleReaders.offer(conn)) {
+            closeQuietly(conn);
+            openReaders.decrementAndGet();
+        }
+    }
+
+    private Connection open(boolean readOnly) throws SQLException {
+        long start = System.nanoTime();
+        Connection conn = DriverManager.getConnection(url);
+        try {
+            profile.apply(conn);
+            if (readOnly) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("PRAGMA query_only = ON");
+                }
+            }
+        } catch (SQLException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+        statementCaches.put(conn, new StatementCache(conn, STATEMENT_CACHE_SIZE, statementHits, statementMisses));
+        opens.incrementAndGet();
+        openNanos.addAndGet(System.nanoTime() - start);
+        return conn;
+    }
+
+    private void recordBorrow(long start) {
+        borrows.incrementAndGet();
+        borrowNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Database connections have been closed");
+        }
+    }
+
+    public void close() {
+        closed = true;
+        Connection conn;
+        while ((conn = idleReaders.poll()) != null) {
+            closeQuietly(conn);
+        }
+        writerLock.lock();
+        try {
+            if (writer != null) {
+                closeQuietly(writer);
+                writer = null;
+            }
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    private void closeQuietly(Connection conn) {
+        StatementCache cache = statementCaches.remove(conn);
+        if (cache != null) {
+            cache.close();
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing database connection: " + e.getMessage());
+        }
+    }
+
+    public long getOpenCount() {
+        return opens.get();
+    }
+
+    public long getBorrowCount() {
+        return borrows.get();
+    }
+
+    public long getStatementCacheHits() {
+        return statementHits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementMisses.get();
+    }
+
+    // Average time to open a connection, in microseconds
+    public double getAverageOpenMicros() {
+        long count = opens.get();
+        return count == 0 ? 0 : openNanos.get() / 1000.0 / count;
+    }
+
+    // Average time to get a connection, including waiting for one, in microseconds
+    public double getAverageBorrowMicros() {
+        long count = borrows.get();
+        return count == 0 ? 0 : borrowNanos.get() / 1000.0 / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("connections opened: %d (avg %.0f us), borrowed: %d (avg %.1f us), readers: %d/%d, "
+                        + "statement cache hits: %d, misses: %d",
+                getOpenCount(), getAverageOpenMicros(), getBorrowCount(), getAverageBorrowMicros(),
+                openReaders.get(), maxReaders, getStatementCacheHits(), getStatementCacheMisses());
+    }
+}
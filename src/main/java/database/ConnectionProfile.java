@@ -0,0 +1,62 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// SQLite settings applied to every connection when it is opened.
+// Defaults suit a till: WAL so history and stats reads never wait for a checkout being written,
+// synchronous=NORMAL so a commit does not pay a full fsync (WAL stays consistent after a crash),
+// and foreign keys on so ON DELETE CASCADE works. Each value can be overridden with a system
+// property, e.g. -Dpos.db.synchronous=FULL.
+public class ConnectionProfile {
+    private final Map<String, String> pragmas = new LinkedHashMap<>();
+
+    private ConnectionProfile() {}
+
+    public static ConnectionProfile fromSystemProperties() {
+        ConnectionProfile profile = new ConnectionProfile();
+        profile.set("journal_mode", System.getProperty("pos.db.journalMode", "WAL"));
+        profile.set("synchronous", System.getProperty("pos.db.synchronous", "NORMAL"));
+        profile.set("foreign_keys", System.getProperty("pos.db.foreignKeys", "ON"));
+        profile.set("busy_timeout", System.getProperty("pos.db.busyTimeout", "5000"));   // Milliseconds
+        profile.set("mmap_size", System.getProperty("pos.db.mmapSize", "67108864"));     // 64 MB
+        profile.set("cache_size", System.getProperty("pos.db.cacheSize", "-16384"));     // 16 MB
+        profile.set("temp_store", System.getProperty("pos.db.tempStore", "MEMORY"));
+        return profile;
+    }
+
+    private void set(String pragma, String value) {
+        // Values end up in SQL text, so only allow plain words and numbers
+        if (!value.matches("-?[A-Za-z0-9_]+")) {
+            throw new IllegalArgumentException("Invalid value for PRAGMA " + pragma + ": " + value);
+        }
+        pragmas.put(pragma, value);
+    }
+
+    public void apply(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (Map.Entry<String, String> pragma : pragmas.entrySet()) {
+                stmt.execute("PRAGMA " + pragma.getKey() + " = " + pragma.getValue());
+            }
+        }
+    }
+
+    // Prints the values SQLite actually uses, which can differ from the requested ones
+    // (e.g. mmap_size is capped at compile time and WAL is not available for in-memory databases)
+    public void report(Connection conn) throws SQLException {
+        System.out.println("SQLite connection profile:");
+        try (Statement stmt = conn.createStatement()) {
+            for (Map.Entry<String, String> pragma : pragmas.entrySet()) {
+                try (ResultSet rs = stmt.executeQuery("PRAGMA " + pragma.getKey())) {
+                    String effective = rs.next() ? rs.getString(1) : "(none)";
+                    System.out.println("  " + pragma.getKey() + " = " + effective
+                            + " (requested " + pragma.getValue() + ")");
+                }
+            }
+        }
+    }
+}
@@ -1,32 +1,283 @@
 package database;
 
+import javafx.model.DateRange;
+import javafx.model.Money;
+import javafx.model.OrderLine;
+import javafx.model.OrderSummary;
 import javafx.model.Product;
-import javafx.model.Order;
+import javafx.model.OrderSnapshot;
+import javafx.model.Payment;
+import javafx.model.PricingPlan;
+import javafx.model.ProductSalesStat;
+import javafx.model.Promotion;
 import javafx.model.ProductType;
+import javafx.model.Receipt;
+import javafx.model.SalesTotals;
 
 import java.io.*;
 import java.nio.file.*;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 // Handles all database operations and initialisation
 public class Database {
-    private static Connection connection;
+    private static final int MAX_READ_CONNECTIONS = 4;
+    private static final String ORDER_JOURNAL_FILE = "orders.journal";
+    private static final String FAILED_ORDERS_FILE = "orders.failed";
+
+    private static Path dataDirectory;
     private static String databaseUrl;
+    private static ConnectionProfile connectionProfile;
+    private static ConnectionManager connections;
+
+    // Products kept in memory, so screens and order saves need no product queries
+    private static final ProductCatalog catalog = new ProductCatalog();
+
+    // Active promotions compiled for pricing orders; replaced as a whole by reloadPromotions()
+    private static volatile PricingPlan pricingPlan = PricingPlan.NONE;
+
+    // Checkouts are journaled and written to SQLite in the background; order ids are handed out
+    // up front so a sale has its id before it is stored
+    private static OrderJournal orderJournal;
+    private static OrderJournal failedOrders;
+    private static OrderWriter orderWriter;
+    private static AtomicLong lastOrderId;
+    private static volatile Consumer<PendingOrder> onFailedOrder = order -> {};
+
+    // Told about a checkout SQLite rejected; the order is set aside in orders.failed in the data directory
+    public interface FailedOrderListener {
+        void orderFailed(long orderId, Money total);
+    }
+
+    // Receipts are appended to an archive instead of one PDF per sale
+    private static String receiptDirectory;
+    private static ReceiptArchive receiptArchive;
+
+    // Format SQLite uses for CURRENT_TIMESTAMP, which order_date defaults to
+    static final DateTimeFormatter ORDER_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String MIN_ORDER_DATE = "0000-01-01 00:00:00";
+    private static final String MAX_ORDER_DATE = "9999-12-31 23:59:59";
+
+    // Schema migrations in order; migration n (1-based) moves the schema to user_version n
+    private static final String[][] MIGRATIONS = {
+            // 1: indexes for date range queries and order item lookups
+            {
+                    "CREATE INDEX IF NOT EXISTS idx_orders_order_date ON orders(order_date)",
+                    "CREATE INDEX IF NOT EXISTS idx_order_items_order_id ON order_items(order_id)",
+                    "CREATE INDEX IF NOT EXISTS idx_order_items_product_id ON order_items(product_id)"
+            },
+            // 2: per-line discount and the daily_sales rollup, backfilled from existing orders
+            {
+                    "ALTER TABLE order_items ADD COLUMN discount REAL NOT NULL DEFAULT 0",
+                    """
+                    UPDATE order_items
+                    SET discount = quantity * price_per_unit - quantity * price_per_unit
+                            * (SELECT o.total FROM orders o WHERE o.id = order_items.order_id)
+                            / (SELECT SUM(i.quantity * i.price_per_unit) FROM order_items i
+                               WHERE i.order_id = order_items.order_id)
+                    WHERE EXISTS (SELECT 1 FROM orders o WHERE o.id = order_items.order_id)
+                      AND price_per_unit > 0
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS daily_sales (
+                        day TEXT NOT NULL,  -- Local date of the orders (yyyy-MM-dd); order_date is UTC
+                        product_id INTEGER NOT NULL,
+                        quantity INTEGER NOT NULL,
+                        gross REAL NOT NULL,  -- Value before discount
+                        discount REAL NOT NULL,  -- Share of order discounts
+                        net REAL NOT NULL,  -- Value after discount
+                        PRIMARY KEY (day, product_id)
+                    ) WITHOUT ROWID
+                    """,
+                    """
+                    INSERT INTO daily_sales (day, product_id, quantity, gross, discount, net)
+                    SELECT date(o.order_date, 'localtime'), oi.product_id,
+                           SUM(oi.quantity),
+                           SUM(oi.quantity * oi.price_per_unit),
+                           SUM(oi.discount),
+                           SUM(oi.quantity * oi.price_per_unit - oi.discount)
+                    FROM order_items oi
+                    JOIN orders o ON o.id = oi.order_id
+                    GROUP BY date(o.order_date, 'localtime'), oi.product_id
+                    """
+            },
+            // 3: order discount and payment, so receipts can be reprinted from the stored order;
+            // payment_method stays NULL for earlier orders, whose payment was not recorded
+            {
+                    "ALTER TABLE orders ADD COLUMN discount REAL NOT NULL DEFAULT 0",
+                    "ALTER TABLE orders ADD COLUMN payment_method TEXT",  // CASH or EPAYMENT
+                    "ALTER TABLE orders ADD COLUMN amount_paid REAL",
+                    "ALTER TABLE orders ADD COLUMN change_given REAL",
+                    """
+                    UPDATE orders
+                    SET discount = (SELECT COALESCE(SUM(oi.discount), 0) FROM order_items oi
+                                    WHERE oi.order_id = orders.id)
+                    """
+            },
+            // 4: money as INTEGER rupiah instead of REAL. SQLite cannot change a column's type, so
+            // each table is rebuilt (with foreign keys off, see migrate()) keeping its ids and its
+            // AUTOINCREMENT counter; daily_sales is recomputed from the converted order items.
+            // Products are retired (active = 0) rather than deleted, so their sales history stays:
+            // order items RESTRICT deleting a sold product instead of cascading, and type/variant
+            // only has to be unique among active products.
+            {
+                    """
+                    CREATE TABLE products_new (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        type TEXT NOT NULL,
+                        variant TEXT NOT NULL,
+                        price INTEGER NOT NULL,  -- Rupiah
+                        active INTEGER NOT NULL DEFAULT 1  -- 0 once removed from the catalog
+                    )
+                    """,
+                    """
+                    INSERT INTO sqlite_sequence (name, seq)
+                    SELECT 'products_new', seq FROM sqlite_sequence WHERE name = 'products'
+                    """,
+                    """
+                    INSERT INTO products_new (id, type, variant, price)
+                    SELECT id, type, variant, CAST(ROUND(price) AS INTEGER) FROM products
+                    """,
+                    "DROP TABLE products",
+                    "ALTER TABLE products_new RENAME TO products",
+
+                    """
+                    CREATE TABLE orders_new (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        total INTEGER NOT NULL,  -- Rupiah, after discount
+                        order_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                        discount INTEGER NOT NULL DEFAULT 0,
+                        payment_method TEXT,  -- CASH or EPAYMENT, NULL if not recorded
+                        amount_paid INTEGER,
+                        change_given INTEGER
+                    )
+                    """,
+                    """
+                    INSERT INTO sqlite_sequence (name, seq)
+                    SELECT 'orders_new', seq FROM sqlite_sequence WHERE name = 'orders'
+                    """,
+                    """
+                    INSERT INTO orders_new (id, total, order_date, discount, payment_method, amount_paid, change_given)
+                    SELECT id, CAST(ROUND(total) AS INTEGER), order_date, CAST(ROUND(discount) AS INTEGER),
+                           payment_method, CAST(ROUND(amount_paid) AS INTEGER), CAST(ROUND(change_given) AS INTEGER)
+                    FROM orders
+                    """,
+                    "DROP TABLE orders",
+                    "ALTER TABLE orders_new RENAME TO orders",
+
+                    """
+                    CREATE TABLE order_items_new (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        order_id INTEGER NOT NULL,  -- The order this item belongs to
+                        product_id INTEGER NOT NULL,  -- The product being sold
+                        quantity INTEGER NOT NULL,  -- Number of units of the product sold
+                        price_per_unit INTEGER NOT NULL,  -- Rupiah per unit at the time of sale
+                        discount INTEGER NOT NULL DEFAULT 0,  -- Share of the order discount, rupiah
+                        FOREIGN KEY (order_id) REFERENCES orders(id) ON DELETE CASCADE,
+                        FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE RESTRICT
+                    )
+                    """,
+                    """
+                    INSERT INTO sqlite_sequence (name, seq)
+                    SELECT 'order_items_new', seq FROM sqlite_sequence WHERE name = 'order_items'
+                    """,
+                    """
+                    INSERT INTO order_items_new (id, order_id, product_id, quantity, price_per_unit, discount)
+                    SELECT id, order_id, product_id, quantity,
+                           CAST(ROUND(price_per_unit) AS INTEGER), CAST(ROUND(discount) AS INTEGER)
+                    FROM order_items
+                    """,
+                    "DROP TABLE order_items",
+                    "ALTER TABLE order_items_new RENAME TO order_items",
+
+                    "CREATE UNIQUE INDEX idx_products_type_variant ON products(type, variant) WHERE active = 1",
+                    "CREATE INDEX idx_orders_order_date ON orders(order_date)",
+                    "CREATE INDEX idx_order_items_order_id ON order_items(order_id)",
+                    "CREATE INDEX idx_order_items_product_id ON order_items(product_id)",
+
+                    "DROP TABLE daily_sales",
+                    """
+                    CREATE TABLE daily_sales (
+                        day TEXT NOT NULL,  -- Local date of the orders (yyyy-MM-dd); order_date is UTC
+                        product_id INTEGER NOT NULL,
+                        quantity INTEGER NOT NULL,
+                        gross INTEGER NOT NULL,  -- Rupiah before discount
+                        discount INTEGER NOT NULL,  -- Share of order discounts
+                        net INTEGER NOT NULL,  -- Rupiah after discount
+                        PRIMARY KEY (day, product_id)
+                    ) WITHOUT ROWID
+                    """,
+                    """
+                    INSERT INTO daily_sales (day, product_id, quantity, gross, discount, net)
+                    SELECT date(o.order_date, 'localtime'), oi.product_id,
+                           SUM(oi.quantity),
+                           SUM(oi.quantity * oi.price_per_unit),
+                           SUM(oi.discount),
+                           SUM(oi.quantity * oi.price_per_unit - oi.discount)
+                    FROM order_items oi
+                    JOIN orders o ON o.id = oi.order_id
+                    GROUP BY date(o.order_date, 'localtime'), oi.product_id
+                    """
+            },
+            // 5: promotions, seeded with the spend tiers that used to be hard-coded in Order
+            {
+                    """
+                    CREATE TABLE promotions (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        name TEXT NOT NULL,  -- Shown to the cashier when the promotion applies
+                        kind TEXT NOT NULL,  -- ORDER_TIER, PERCENT_OFF or BUY_GET_FREE
+                        product_type TEXT,  -- Item promotions: the type they apply to, or
+                        product_id INTEGER REFERENCES products(id) ON DELETE CASCADE,  -- the product
+                        min_subtotal INTEGER NOT NULL DEFAULT 0,  -- ORDER_TIER: rupiah the order must reach
+                        percent INTEGER NOT NULL DEFAULT 0,  -- ORDER_TIER and PERCENT_OFF
+                        buy_quantity INTEGER NOT NULL DEFAULT 0,  -- BUY_GET_FREE
+                        free_quantity INTEGER NOT NULL DEFAULT 0,  -- BUY_GET_FREE
+                        start_time TEXT,  -- HH:mm, with end_time limits the promotion to part of the day
+                        end_time TEXT,
+                        active INTEGER NOT NULL DEFAULT 1
+                    )
+                    """,
+                    """
+                    INSERT INTO promotions (name, kind, min_subtotal, percent) VALUES
+                        ('5% off orders from Rp 300,000', 'ORDER_TIER', 300000, 5),
+                        ('10% off orders from Rp 500,000', 'ORDER_TIER', 500000, 10)
+                    """
+            },
+            // 6: barcode/PLU codes for scanning items at the till; optional, but no two active products share one
+            {
+                    "ALTER TABLE products ADD COLUMN code TEXT",
+                    "CREATE UNIQUE INDEX idx_products_code ON products(code) WHERE active = 1"
+            }
+    };
 
     private Database() {}
 
     public static void initialize() throws SQLException {
         try {
+            connectionProfile = ConnectionProfile.fromSystemProperties();
             setupDatabasePath();
-            connection = getConnection();
+            connections = new ConnectionManager(databaseUrl, connectionProfile, MAX_READ_CONNECTIONS);
             setup();
+            catalog.load(loadProducts());
+            reloadPromotions();
+            startOrderWriter();
+            connections.write(conn -> {
+                connectionProfile.report(conn);
+                return null;
+            });
         } catch (Exception e) {
             System.err.println("Critical error during database initialization:");
             e.printStackTrace();
@@ -42,6 +293,7 @@ public class Database {
             System.out.println("AppData directory exists: " + appDataDir.exists());
             System.out.println("AppData directory is writable: " + appDataDir.canWrite());
             Path dbDirectory = Paths.get(appDataPath);
+            dataDirectory = dbDirectory;
             Path dbPath = dbDirectory.resolve("app_database.db");
 
             System.out.println("Setting up database...");
@@ -66,14 +318,9 @@ public class Database {
                         System.out.println("Database copied successfully to: " + dbPath);
                     } else {
                         System.out.println("No template database found in resources, creating new one...");
-                        // Create an empty database file
+                        // Create an empty database file; setup() creates all necessary tables
                         Files.createFile(dbPath);
-                        // Set the database URL and initialize it
-                        databaseUrl = "jdbc:sqlite:" + dbPath.toString();
-                        Connection conn = getConnection();
-                        setup();  // This will create all necessary tables
-                        System.out.println("Created and initialized new database file at: " + dbPath);
-                        return; // Exit after creating new database
+                        System.out.println("Created new database file at: " + dbPath);
                     }
                 }
             }
@@ -89,18 +336,80 @@ public class Database {
         }
     }
 
-    public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(databaseUrl);
+    // Replays orders a previous run journaled but did not store, then starts the background writer
+    private static void startOrderWriter() throws IOException, SQLException {
+        // Journal syncs can be turned off for testing with -Dpos.orders.syncJournal=false
+        boolean sync = Boolean.parseBoolean(System.getProperty("pos.orders.syncJournal", "true"));
+        orderJournal = new OrderJournal(dataDirectory.resolve(ORDER_JOURNAL_FILE), sync);
+        failedOrders = new OrderJournal(dataDirectory.resolve(FAILED_ORDERS_FILE), true);
+        orderWriter = new OrderWriter(orderJournal, failedOrders, Database::saveOrders,
+                order -> onFailedOrder.accept(order));
+
+        // Ids of orders not in SQLite are never handed out again, whether still journaled or set aside
+        long lastId = loadLastOrderId();
+        List<PendingOrder> unsaved = orderJournal.readAll();
+        for (PendingOrder order : unsaved) {
+            lastId = Math.max(lastId, order.id());
+        }
+        for (PendingOrder order : failedOrders.readAll()) {
+            lastId = Math.max(lastId, order.id());
+        }
+        lastOrderId = new AtomicLong(lastId);
+
+        if (!unsaved.isEmpty()) {
+            orderWriter.replay(unsaved);
+        }
+        orderWriter.start();
+    }
+
+    // Sets who is told about orders moved to orders.failed, and the executor they are told on
+    public static void setFailedOrderListener(FailedOrderListener listener, Executor executor) {
+        onFailedOrder = order -> executor.execute(() -> listener.orderFailed(order.id(), Money.of(order.total())));
+    }
+
+    // Highest order id ever used, including ids of deleted orders that AUTOINCREMENT never reuses
+    private static long loadLastOrderId() throws SQLException {
+        String sql = """
+    SELECT MAX(id) FROM (
+        SELECT MAX(id) AS id FROM orders
+        UNION ALL
+        SELECT seq FROM sqlite_sequence WHERE name = 'orders'
+    )
+    """;
+
+        return connections.read(conn -> {
+            try (ResultSet rs = prepare(conn, sql).executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        });
+    }
+
+    // Stops the order writer and closes all pooled connections; called once when the application exits
+    public static void shutdown() {
+        if (orderWriter != null) {
+            orderWriter.close();
+            System.out.println("Order writer " + orderWriter);
+            orderJournal.close();
+            failedOrders.close();
+        }
+        if (connections != null) {
+            System.out.println("Database " + connections);
+            connections.close();
         }
-        return connection;
     }
 
     public static void setup() throws SQLException {
-        // Step 1: Establish a connection
-        try (Connection connection = getConnection();
-             Statement statement = connection.createStatement()) {
+        // Step 1: Use the writer connection
+        connections.write(connection -> {
+            setup(connection);
+            return null;
+        });
+    }
+
+    private static void setup(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
 
+            // Steps 2-4 create the original schema; migrate() brings it up to date
             // Step 2: Create the products table if it doesn't exist
             String createProductsTableSQL = """
         CREATE TABLE IF NOT EXISTS products (
@@ -141,6 +450,9 @@ public class Database {
             statement.execute(createOrdersTableSQL);
             statement.execute(createOrderItemsTableSQL);
 
+            // Step 5: Bring older databases up to the current schema
+            migrate(connection);
+
             System.out.println("Database setup complete. Tables created if they didn't exist.");
 
         } catch (SQLException e) {
@@ -148,182 +460,569 @@ public class Database {
         }
     }
 
-    public static void addProduct(Product product) throws SQLException {
-        String sql = "INSERT INTO products (type, variant, price) VALUES (?, ?, ?)";  // changed name to variant
+    // Applies every migration newer than the schema version stored in PRAGMA user_version.
+    // Each migration runs in its own transaction together with the version bump. Foreign keys are
+    // off meanwhile, so rebuilding a table does not cascade-delete the rows that reference it.
+    private static void migrate(Connection conn) throws SQLException {
+        int version;
+        boolean foreignKeys;
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+                version = rs.next() ? rs.getInt(1) : 0;
+            }
+            try (ResultSet rs = stmt.executeQuery("PRAGMA foreign_keys")) {
+                foreignKeys = rs.next() && rs.getBoolean(1);
+            }
+        }
+        if (version >= MIGRATIONS.length) {
+            return;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = OFF");  // Has no effect inside a transaction
+            for (int i = version; i < MIGRATIONS.length; i++) {
+                conn.setAutoCommit(false);
+                try {
+                    for (String sql : MIGRATIONS[i]) {
+                        stmt.execute(sql);
+                    }
+                    try (ResultSet rs = stmt.executeQuery("PRAGMA foreign_key_check")) {
+                        if (rs.next()) {
+                            System.err.println("Migration " + (i + 1) + ": rows in " + rs.getString("table")
+                                    + " reference missing rows in " + rs.getString("parent"));
+                        }
+                    }
+                    stmt.execute("PRAGMA user_version = " + (i + 1));
+                    conn.commit();
+                    System.out.println("Applied database migration " + (i + 1));
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw new SQLException("Migration " + (i + 1) + " failed: " + e.getMessage(), e);
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        } finally {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA foreign_keys = " + (foreignKeys ? "ON" : "OFF"));
+            }
+        }
+    }
+
+    public static ProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    // Saves a new product and returns it with its database id
+    public static Product addProduct(Product product) throws SQLException {
+        String sql = "INSERT INTO products (type, variant, price, code) VALUES (?, ?, ?, ?)";  // changed name to variant
 
-        try (Connection connection = getConnection();
-             PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        long productId = connections.write(conn -> {
+            PreparedStatement pstmt = prepareWithGeneratedKeys(conn, sql);
             pstmt.setString(1, product.getType().name());
             pstmt.setString(2, product.getVariant());  // changed from getName
-            pstmt.setDouble(3, product.getPrice());
+            pstmt.setLong(3, product.getPrice().rupiah());
+            pstmt.setString(4, product.getCode());
             pstmt.executeUpdate();
+            try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                if (!rs.next()) {
+                    throw new SQLException("Creating product failed, no ID obtained.");
+                }
+                return rs.getLong(1);
+            }
+        });
+        Product saved = product.withId(productId);
+        catalog.put(saved);
+        return saved;
+    }
+
+    // Updates a product in place, so its order history stays linked to it
+    // (the product is identified by its id)
+    public static boolean updateProduct(Product updated) throws SQLException {
+        String sql = "UPDATE products SET type = ?, variant = ?, price = ?, code = ? WHERE id = ? AND active = 1";
+
+        boolean found = connections.write(conn -> {
+            PreparedStatement pstmt = prepare(conn, sql);
+            pstmt.setString(1, updated.getType().name());
+            pstmt.setString(2, updated.getVariant());
+            pstmt.setLong(3, updated.getPrice().rupiah());
+            pstmt.setString(4, updated.getCode());
+            pstmt.setLong(5, updated.getId());
+            return pstmt.executeUpdate() > 0;
+        });
+        if (found) {
+            catalog.put(updated);
+        } else {
+            catalog.remove(updated.getId());
         }
+        return found;
     }
 
+    // Retires a product: it leaves the catalog, but stays in the products table so the orders it
+    // was sold in keep their lines and the daily_sales rollup still matches them
     public static boolean removeProduct(Product product) throws SQLException {
-        String sql = "DELETE FROM products WHERE type = ? AND variant = ? AND price = ?";
+        String sql = "UPDATE products SET active = 0 WHERE id = ? AND active = 1";
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, product.getType().name());
-            pstmt.setString(2, product.getVariant());
-            pstmt.setDouble(3, product.getPrice());
-            int affectedRows = pstmt.executeUpdate();
-            return affectedRows > 0;
+        try {
+            boolean removed = connections.write(conn -> {
+                PreparedStatement pstmt = prepare(conn, sql);
+                pstmt.setLong(1, product.getId());
+                int affectedRows = pstmt.executeUpdate();
+                return affectedRows > 0;
+            });
+            catalog.remove(product.getId());
+            return removed;
         } catch (SQLException e) {
             System.err.println("Error removing product: " + e.getMessage());
             throw new SQLException("Failed to remove product: " + e.getMessage(), e);
         }
     }
 
+    // Products from the in-memory catalog, ordered by type and variant
     public static List<Product> getAllProducts() {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT type, variant, price FROM products ORDER BY type, variant";  // changed name to variant
-
-        try (Connection connection = getConnection();
-             Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                ProductType type = ProductType.valueOf(rs.getString("type"));
-                String variant = rs.getString("variant");  // changed from name
-                double price = rs.getDouble("price");
-                products.add(new Product(type, variant, price));
+        return catalog.getAll();
+    }
+
+    // Reads the active products once, for the catalog
+    private static List<Product> loadProducts() throws SQLException {
+        String sql = "SELECT id, type, variant, price, code FROM products WHERE active = 1";  // changed name to variant
+
+        return connections.read(conn -> {
+            List<Product> products = new ArrayList<>();
+            try (ResultSet rs = prepare(conn, sql).executeQuery()) {
+                while (rs.next()) {
+                    ProductType type = ProductType.valueOf(rs.getString("type"));
+                    String variant = rs.getString("variant");  // changed from name
+                    Money price = getMoney(rs, "price");
+                    products.add(new Product(rs.getLong("id"), type, variant, price, rs.getString("code")));
+                }
             }
-        } catch (SQLException e) {
-            System.err.println("Error fetching products: " + e.getMessage());
+            return products;
+        });
+    }
+
+    // Pricing plan for new orders
+    public static PricingPlan getPricingPlan() {
+        return pricingPlan;
+    }
+
+    // Reads the active promotions and compiles a new pricing plan; orders already being rung up keep theirs.
+    // Rows that do not make a valid promotion are skipped with a warning.
+    public static void reloadPromotions() throws SQLException {
+        String sql = """
+    SELECT id, name, kind, product_type, product_id, min_subtotal, percent,
+           buy_quantity, free_quantity, start_time, end_time
+    FROM promotions
+    WHERE active = 1
+    """;
+
+        List<Promotion> promotions = connections.read(conn -> {
+            List<Promotion> loaded = new ArrayList<>();
+            try (ResultSet rs = prepare(conn, sql).executeQuery()) {
+                while (rs.next()) {
+                    try {
+                        String type = rs.getString("product_type");
+                        String start = rs.getString("start_time");
+                        String end = rs.getString("end_time");
+                        loaded.add(new Promotion(
+                                rs.getLong("id"),
+                                rs.getString("name"),
+                                Promotion.Kind.valueOf(rs.getString("kind")),
+                                type != null ? ProductType.valueOf(type) : null,
+                                rs.getLong("product_id"),
+                                getMoney(rs, "min_subtotal"),
+                                rs.getInt("percent"),
+                                rs.getInt("buy_quantity"),
+                                rs.getInt("free_quantity"),
+                                start != null ? LocalTime.parse(start) : null,
+                                end != null ? LocalTime.parse(end) : null));
+                    } catch (RuntimeException e) {
+                        System.err.println("Skipping promotion #" + rs.getLong("id") + ": " + e.getMessage());
+                    }
+                }
+            }
+            return loaded;
+        });
+
+        pricingPlan = new PricingPlan(promotions);
+        System.out.println("Loaded " + promotions.size() + " promotions");
+    }
+
+    // Takes a sale at checkout: the order is journaled and written to SQLite in the background,
+    // so the cashier does not wait for the database. Returns the receipt, with the id and time
+    // the order will be stored with, so a reprint from the stored order matches it. The order is a
+    // snapshot, so this can run in the background while the till takes the next order.
+    public static Receipt checkout(OrderSnapshot order, Payment payment) throws SQLException {
+        PendingOrder pending = newPendingOrder(order, payment);
+        try {
+            orderWriter.submit(pending);
+        } catch (IOException e) {
+            throw new SQLException("Failed to journal order: " + e.getMessage(), e);
         }
-        return products;
+        return new Receipt(pending.id(), toLocalTime(pending.orderDate()), order, payment);
     }
 
-    public static long saveOrder(Order order) throws SQLException {
-        String sql = "INSERT INTO orders (total) VALUES (?)";
+    // Saves the order straight away, bypassing the write-behind queue
+    public static long saveOrder(OrderSnapshot order, Payment payment) throws SQLException {
+        PendingOrder pending = newPendingOrder(order, payment);
+        saveOrders(List.of(pending));
+        return pending.id();
+    }
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+    private static PendingOrder newPendingOrder(OrderSnapshot order, Payment payment) throws SQLException {
+        for (OrderSnapshot.Item item : order.items()) {
+            getProductId(item.product());
+        }
+        // Same clock as CURRENT_TIMESTAMP, which older orders were stamped with
+        LocalDateTime orderDate = LocalDateTime.now(ZoneOffset.UTC).withNano(0);
+        return PendingOrder.of(lastOrderId.incrementAndGet(), orderDate, order, payment);
+    }
 
-            pstmt.setDouble(1, order.getTotal());
+    // order_date is UTC; receipts show the local time
+    private static LocalDateTime toLocalTime(LocalDateTime utc) {
+        return utc.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
 
-            int affectedRows = pstmt.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Creating order failed, no rows affected.");
-            }
+    // Saves orders, their items and their share of the daily_sales rollup in one transaction,
+    // so a batch costs a single commit and a crash never leaves a half-written order.
+    // Orders that are already stored (e.g. replayed from the journal) are skipped.
+    private static void saveOrders(List<PendingOrder> orders) throws SQLException {
+        String sql = """
+    INSERT INTO orders (id, order_date, total, discount, payment_method, amount_paid, change_given)
+    VALUES (?, ?, ?, ?, ?, ?, ?)
+    ON CONFLICT (id) DO NOTHING
+    """;
 
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    long orderId = generatedKeys.getLong(1);
-                    // Save order items
-                    saveOrderItems(orderId, order.getItems());
-                    return orderId;
-                } else {
-                    throw new SQLException("Creating order failed, no ID obtained.");
+        connections.transaction(conn -> {
+            PreparedStatement pstmt = prepare(conn, sql);
+            for (PendingOrder order : orders) {
+                pstmt.setLong(1, order.id());
+                pstmt.setString(2, order.formattedDate());
+                pstmt.setLong(3, order.total());
+                pstmt.setLong(4, order.discount());
+                Payment payment = order.payment();
+                pstmt.setString(5, payment.isEPayment() ? "EPAYMENT" : "CASH");
+                pstmt.setLong(6, payment.amount().rupiah());
+                pstmt.setLong(7, payment.change().rupiah());
+                if (pstmt.executeUpdate() == 0) {
+                    continue;
                 }
+
+                saveOrderItems(conn, order);
+                updateDailySales(conn, order.id(), 1);
             }
-        }
+            return null;
+        });
     }
 
+    // Deletes the order and takes it back out of the daily_sales rollup in one transaction
     public static void deleteOrder(long orderId) throws SQLException {
         String sql = "DELETE FROM orders WHERE id = ?";
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        connections.transaction(conn -> {
+            updateDailySales(conn, orderId, -1);
+            PreparedStatement pstmt = prepare(conn, sql);
             pstmt.setLong(1, orderId);
-            pstmt.executeUpdate();
-        }
+            return pstmt.executeUpdate();
+        });
     }
 
-    public static double getTotalSales() throws SQLException {
-        String sql = "SELECT SUM(total) as total_sales FROM orders";
+    public static Money getTotalSales() throws SQLException {
+        return getSalesTotals(null).net();
+    }
+
+    // Quantity and money totals over a date range (null for all time), read from the daily rollup
+    public static SalesTotals getSalesTotals(DateRange range) throws SQLException {
+        String sql = """
+    SELECT COALESCE(SUM(quantity), 0) AS quantity,
+           COALESCE(SUM(gross), 0) AS gross,
+           COALESCE(SUM(discount), 0) AS discount,
+           COALESCE(SUM(net), 0) AS net
+    FROM daily_sales
+    WHERE day >= ? AND day < ?
+    """;
+
+        return connections.read(conn -> {
+            PreparedStatement pstmt = prepare(conn, sql);
+            bindDayRange(pstmt, 1, range);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return readSalesTotals(rs);
+            }
+        });
+    }
+
+    // Totals per day over a date range (null for all time), oldest day first
+    public static Map<LocalDate, SalesTotals> getDailySalesTotals(DateRange range) throws SQLException {
+        String sql = """
+    SELECT day,
+           SUM(quantity) AS quantity,
+           SUM(gross) AS gross,
+           SUM(discount) AS discount,
+           SUM(net) AS net
+    FROM daily_sales
+    WHERE day >= ? AND day < ?
+    GROUP BY day
+    ORDER BY day
+    """;
+
+        Map<LocalDate, SalesTotals> totals = new LinkedHashMap<>();
 
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) {
-                return rs.getDouble("total_sales");
+        return connections.read(conn -> {
+            PreparedStatement pstmt = prepare(conn, sql);
+            bindDayRange(pstmt, 1, range);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    totals.put(LocalDate.parse(rs.getString("day")), readSalesTotals(rs));
+                }
             }
-            return 0.0;
+            return totals;
+        });
+    }
+
+    private static SalesTotals readSalesTotals(ResultSet rs) throws SQLException {
+        return new SalesTotals(
+                rs.getInt("quantity"),
+                getMoney(rs, "gross"),
+                getMoney(rs, "discount"),
+                getMoney(rs, "net"));
+    }
+
+    // Adds (sign 1) or subtracts (sign -1) the items of an order to the daily_sales rollup. Orders are
+    // counted on the shop's local day; SQLite's 'localtime' and the JVM both use the machine's time zone.
+    private static void updateDailySales(Connection conn, long orderId, int sign) throws SQLException {
+        String sql = """
+    INSERT INTO daily_sales (day, product_id, quantity, gross, discount, net)
+    SELECT date(o.order_date, 'localtime'),
+           oi.product_id,
+           ? * SUM(oi.quantity),
+           ? * SUM(oi.quantity * oi.price_per_unit),
+           ? * SUM(oi.discount),
+           ? * SUM(oi.quantity * oi.price_per_unit - oi.discount)
+    FROM order_items oi
+    JOIN orders o ON o.id = oi.order_id
+    WHERE oi.order_id = ?
+    GROUP BY date(o.order_date, 'localtime'), oi.product_id
+    ON CONFLICT (day, product_id) DO UPDATE SET
+        quantity = quantity + excluded.quantity,
+        gross = gross + excluded.gross,
+        discount = discount + excluded.discount,
+        net = net + excluded.net
+    """;
+
+        PreparedStatement pstmt = prepare(conn, sql);
+        for (int i = 1; i <= 4; i++) {
+            pstmt.setInt(i, sign);
+        }
+        pstmt.setLong(5, orderId);
+        pstmt.executeUpdate();
+
+        if (sign < 0) {
+            prepare(conn, "DELETE FROM daily_sales WHERE quantity = 0").executeUpdate();
         }
     }
 
-    private static void saveOrderItems(long orderId, Map<Product, Integer> items) throws SQLException {
+    // Inserts the order items as one JDBC batch
+    private static void saveOrderItems(Connection conn, PendingOrder order) throws SQLException {
         String sql = """
-    INSERT INTO order_items (order_id, product_id, quantity, price_per_unit)
-    SELECT ?, id, ?, price
-    FROM products
-    WHERE type = ? AND variant = ?
+    INSERT INTO order_items (order_id, product_id, quantity, price_per_unit, discount)
+    VALUES (?, ?, ?, ?, ?)
     """;
 
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        PreparedStatement pstmt = prepare(conn, sql);
+        pstmt.clearBatch(); // Drop anything left over from a save that failed part way
 
-            for (Map.Entry<Product, Integer> entry : items.entrySet()) {
-                Product product = entry.getKey();
-                int quantity = entry.getValue();
+        for (PendingOrder.Line line : order.lines()) {
+            pstmt.setLong(1, order.id());
+            pstmt.setLong(2, line.productId());
+            pstmt.setInt(3, line.quantity());
+            pstmt.setLong(4, line.pricePerUnit());
+            pstmt.setLong(5, line.discount());
+            pstmt.addBatch();
+        }
 
-                pstmt.setLong(1, orderId);
-                pstmt.setInt(2, quantity);
-                pstmt.setString(3, product.getType().name());
-                pstmt.setString(4, product.getVariant());
+        pstmt.executeBatch();
+    }
 
-                pstmt.executeUpdate();
-            }
+    // Database id of a product in an order, checked against the catalog
+    private static long getProductId(Product product) throws SQLException {
+        if (catalog.getById(product.getId()) == null) {
+            throw new SQLException("Product no longer exists: " + product);
         }
+        return product.getId();
     }
 
-    // Method to retrieve order history
-    public static List<Map<String, Object>> getOrderHistory() throws SQLException {
-        List<Map<String, Object>> orderHistory = new ArrayList<>();
+    // Retrieves one page of order history, newest first, optionally limited to a date range
+    // (null for all orders). Pages are keyset-based on (order_date, id): pass null/0 for the
+    // first page, then the date and id of the last order of the previous page to continue
+    // after it. Both the range and the cursor are answered by the order_date index, so the
+    // cost does not grow with the size of the history.
+    public static List<OrderSummary> getOrderHistoryPage(DateRange range, LocalDateTime beforeDate, long beforeId,
+                                                         int pageSize) throws SQLException {
+        List<OrderSummary> orderHistory = new ArrayList<>();
 
         String sql = """
     SELECT o.id, o.total, o.order_date,
            oi.quantity, oi.price_per_unit,
            p.type as product_type, p.variant as product_variant
+    FROM (
+        SELECT id, total, order_date
+        FROM orders
+        WHERE order_date >= ? AND order_date < ?
+          AND (order_date, id) < (?, ?)
+        ORDER BY order_date DESC, id DESC
+        LIMIT ?
+    ) o
+    LEFT JOIN order_items oi ON o.id = oi.order_id
+    LEFT JOIN products p ON oi.product_id = p.id
+    ORDER BY o.order_date DESC, o.id DESC
+    """;
+
+        // order_date is stored as text, so the cursor is bound in the same format
+        String cursorDate = beforeDate != null ? beforeDate.format(ORDER_DATE_FORMAT) : MAX_ORDER_DATE;
+        long cursorId = beforeDate != null ? beforeId : Long.MAX_VALUE;
+
+        return connections.read(conn -> {
+            PreparedStatement pstmt = prepare(conn, sql);
+            bindOrderDateRange(pstmt, 1, range);
+            pstmt.setString(3, cursorDate);
+            pstmt.setLong(4, cursorId);
+            pstmt.setInt(5, pageSize);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                long currentOrderId = -1;
+                List<OrderLine> currentLines = null;
+
+                while (rs.next()) {
+                    long orderId = rs.getLong("id");
+
+                    if (orderId != currentOrderId) {
+                        currentLines = new ArrayList<>();
+                        orderHistory.add(new OrderSummary(
+                                orderId,
+                                LocalDateTime.parse(rs.getString("order_date"), ORDER_DATE_FORMAT),
+                                getMoney(rs, "total"),
+                                currentLines));
+                        currentOrderId = orderId;
+                    }
+
+                    String productType = rs.getString("product_type");
+                    if (productType == null) {
+                        continue; // Order has no items left
+                    }
+
+                    currentLines.add(new OrderLine(
+                            ProductType.valueOf(productType),
+                            rs.getString("product_variant"),
+                            rs.getInt("quantity"),
+                            getMoney(rs, "price_per_unit")));
+                }
+            }
+            return orderHistory;
+        });
+    }
+
+    // Rebuilds the receipt of a stored order from its saved lines, discount and payment, stamped with
+    // the time of the sale. Items of products removed since are still shown, under their old name.
+    public static Receipt getReceipt(long orderId) throws SQLException {
+        String sql = """
+    SELECT o.order_date, o.total, o.discount, o.payment_method, o.amount_paid, o.change_given,
+           oi.quantity, oi.price_per_unit,
+           p.type as product_type, p.variant as product_variant
     FROM orders o
-    JOIN order_items oi ON o.id = oi.order_id
-    JOIN products p ON oi.product_id = p.id
-    ORDER BY o.order_date DESC
+    LEFT JOIN order_items oi ON o.id = oi.order_id
+    LEFT JOIN products p ON oi.product_id = p.id
+    WHERE o.id = ?
     """;
 
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            long currentOrderId = -1;
-            Map<String, Object> currentOrder = null;
-            List<Map<String, Object>> currentItems = null;
-
-            while (rs.next()) {
-                long orderId = rs.getLong("id");
-
-                if (orderId != currentOrderId) {
-                    // Create new order entry
-                    currentOrder = new HashMap<>();
-                    currentItems = new ArrayList<>();
-                    currentOrder.put("orderId", orderId);
-                    currentOrder.put("total", rs.getDouble("total"));
-                    currentOrder.put("date", rs.getTimestamp("order_date"));
-                    currentOrder.put("items", currentItems);
-                    orderHistory.add(currentOrder);
-                    currentOrderId = orderId;
+        return connections.read(conn -> {
+            PreparedStatement pstmt = prepare(conn, sql);
+            pstmt.setLong(1, orderId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Order #" + orderId + " not found");
                 }
 
-                // Add item to current order
-                Map<String, Object> item = new HashMap<>();
-                String productType = rs.getString("product_type");
-                String productVariant = rs.getString("product_variant");
-                // Format product display: "Type - Variant"
-                item.put("productName", productType + " - " + productVariant);
-                item.put("quantity", rs.getInt("quantity"));
-                item.put("pricePerUnit", rs.getDouble("price_per_unit"));
-                currentItems.add(item);
+                LocalDateTime orderDate = LocalDateTime.parse(rs.getString("order_date"), ORDER_DATE_FORMAT);
+                Money total = getMoney(rs, "total");
+                Money discount = getMoney(rs, "discount");
+                String method = rs.getString("payment_method");
+                Payment payment = method == null ? null : new Payment(
+                        method.equals("EPAYMENT"), getMoney(rs, "amount_paid"), getMoney(rs, "change_given"));
+
+                List<OrderLine> lines = new ArrayList<>();
+                do {
+                    String productType = rs.getString("product_type");
+                    if (productType != null) {
+                        lines.add(new OrderLine(
+                                ProductType.valueOf(productType),
+                                rs.getString("product_variant"),
+                                rs.getInt("quantity"),
+                                getMoney(rs, "price_per_unit")));
+                    }
+                } while (rs.next());
+
+                return new Receipt(orderId, toLocalTime(orderDate), lines, total.plus(discount), discount, total,
+                        payment);
             }
+        });
+    }
+
+    // Money columns hold whole rupiah as INTEGER
+    private static Money getMoney(ResultSet rs, String column) throws SQLException {
+        return Money.of(rs.getLong(column));
+    }
+
+    // Cached statements of the borrowed connection; they are reused, so never close them
+    private static PreparedStatement prepare(Connection conn, String sql) throws SQLException {
+        return connections.prepare(conn, sql);
+    }
+
+    private static PreparedStatement prepareWithGeneratedKeys(Connection conn, String sql) throws SQLException {
+        return connections.prepareWithGeneratedKeys(conn, sql);
+    }
+
+    public static long getStatementCacheHits() {
+        return connections.getStatementCacheHits();
+    }
+
+    public static long getStatementCacheMisses() {
+        return connections.getStatementCacheMisses();
+    }
+
+    // Binds the range as two daily_sales day bounds (local dates): start inclusive, end exclusive
+    private static void bindDayRange(PreparedStatement pstmt, int index, DateRange range) throws SQLException {
+        if (range == null) {
+            pstmt.setString(index, MIN_ORDER_DATE);
+            pstmt.setString(index + 1, MAX_ORDER_DATE);
+        } else {
+            pstmt.setString(index, range.start().toString());
+            pstmt.setString(index + 1, range.end().toString());
         }
+    }
 
-        return orderHistory;
+    // Binds the range as two order_date text bounds: local midnight of start (inclusive) and of end
+    // (exclusive), converted to UTC as order_date is stored
+    private static void bindOrderDateRange(PreparedStatement pstmt, int index, DateRange range) throws SQLException {
+        if (range == null) {
+            pstmt.setString(index, MIN_ORDER_DATE);
+            pstmt.setString(index + 1, MAX_ORDER_DATE);
+        } else {
+            pstmt.setString(index, toUtcOrderDate(range.start()));
+            pstmt.setString(index + 1, toUtcOrderDate(range.end()));
+        }
     }
 
+    private static String toUtcOrderDate(LocalDate localDay) {
+        return localDay.atStartOfDay(ZoneId.systemDefault())
+                .withZoneSameInstant(ZoneOffset.UTC)
+                .format(ORDER_DATE_FORMAT);
+    }
 
-    public static List<Map<String, Object>> getProductSalesStats() throws SQLException {
+    public static List<ProductSalesStat> getProductSalesStats() throws SQLException {
         String sql = """
         SELECT 
             p.type,
@@ -333,6 +1032,7 @@ public class Database {
         FROM products p
         LEFT JOIN order_items oi ON p.id = oi.product_id
         GROUP BY p.type, p.variant
+        HAVING MAX(p.active) = 1 OR COUNT(oi.id) > 0  -- Removed products only while they have sales
         ORDER BY 
             CASE 
                 WHEN COALESCE(SUM(oi.quantity), 0) = 0 THEN 1 
@@ -343,68 +1043,57 @@ public class Database {
             p.variant
     """;
 
-        List<Map<String, Object>> stats = new ArrayList<>();
+        List<ProductSalesStat> stats = new ArrayList<>();
 
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        return connections.read(conn -> {
+            try (ResultSet rs = prepare(conn, sql).executeQuery()) {
 
-            while (rs.next()) {
-                Map<String, Object> stat = new HashMap<>();
-                stat.put("type", rs.getString("type"));
-                stat.put("variant", rs.getString("variant"));
-                stat.put("quantity", rs.getInt("total_quantity"));
-                stat.put("total", rs.getDouble("total_sales"));
-                stats.add(stat);
+                while (rs.next()) {
+                    stats.add(new ProductSalesStat(
+                            ProductType.valueOf(rs.getString("type")),
+                            rs.getString("variant"),
+                            rs.getInt("total_quantity"),
+                            getMoney(rs, "total_sales")));
+                }
             }
-        }
-
-        return stats;
+            return stats;
+        });
     }
 
-    public static String generateReceiptFileName(String type) {
-        LocalDateTime now = LocalDateTime.now();
-        String date = now.format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        String time = now.format(DateTimeFormatter.ofPattern("HHmm"));
-
-        String baseFileName = String.format("%s_%s_%s", type, date, time);
-        String fileName = baseFileName + ".pdf";
-        int counter = 1;
-
-        // Check if file exists and append counter if it does
-        File file = new File(getAppDirectory() + File.separator + fileName);
-        while (file.exists()) {
-            fileName = baseFileName + "_" + counter + ".pdf";
-            file = new File(getAppDirectory() + File.separator + fileName);
-            counter++;
+    // Archive of printed receipts, opened on first use
+    public static synchronized ReceiptArchive getReceiptArchive() {
+        if (receiptArchive == null) {
+            receiptArchive = new ReceiptArchive(Paths.get(getAppDirectory()));
         }
-
-        return fileName;
+        return receiptArchive;
     }
 
-    public static String getAppDirectory() {
-        String appPath;
+    // Folder the receipt archive and exported PDFs go in; worked out and created once
+    public static synchronized String getAppDirectory() {
+        if (receiptDirectory == null) {
+            String appPath;
 
-        // Check if we're in development environment
-        boolean isDevelopment = System.getProperty("java.class.path").contains("gradle");
+            // Check if we're in development environment
+            boolean isDevelopment = System.getProperty("java.class.path").contains("gradle");
 
-        if (isDevelopment) {
-            // Development environment - use build directory
-            appPath = System.getProperty("user.dir") + File.separator + "build";
-            System.out.println("Running in development mode");
-        } else {
-            // Production environment - use installation directory
-            appPath = System.getProperty("user.dir");
-            System.out.println("Running in production mode");
-        }
+            if (isDevelopment) {
+                // Development environment - use build directory
+                appPath = System.getProperty("user.dir") + File.separator + "build";
+            } else {
+                // Production environment - use installation directory
+                appPath = System.getProperty("user.dir");
+            }
 
-        // Create Receipt History folder
-        File receiptDir = new File(appPath, "Receipt History");
-        if (!receiptDir.exists()) {
-            receiptDir.mkdirs();
-        }
+            // Create Receipt History folder
+            File receiptDir = new File(appPath, "Receipt History");
+            if (!receiptDir.exists()) {
+                receiptDir.mkdirs();
+            }
 
-        System.out.println("Receipt directory: " + receiptDir.getAbsolutePath());  // For debugging
-        return receiptDir.getAbsolutePath();
+            receiptDirectory = receiptDir.getAbsolutePath();
+            System.out.println("Receipt directory (" + (isDevelopment ? "development" : "production") + "): "
+                    + receiptDirectory);
+        }
+        return receiptDirectory;
     }
 }
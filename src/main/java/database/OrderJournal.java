@@ -0,0 +1,76 @@
+package database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Append-only file of orders, one per line. An order is acknowledged once its line has been
+// forced to disk, so a crash before it reaches SQLite loses nothing: the journal is replayed
+// on the next start.
+class OrderJournal {
+    private final Path path;
+    private final boolean sync;
+    private final FileChannel channel;
+
+    OrderJournal(Path path, boolean sync) throws IOException {
+        this.path = path;
+        this.sync = sync;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+    }
+
+    synchronized void append(PendingOrder order) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((order.toJournalLine() + "\n").getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    // Orders in the journal. A line cut short by a crash is skipped, its order was never acknowledged;
+    // only lines ending in a newline were written in full, a cut line may still parse.
+    synchronized List<PendingOrder> readAll() throws IOException {
+        List<PendingOrder> orders = new ArrayList<>();
+        String text = Files.readString(path, StandardCharsets.UTF_8);
+        int end = text.lastIndexOf('\n') + 1;
+        if (end < text.length()) {
+            System.err.println("Skipping incomplete last journal entry in " + path);
+        }
+        for (String line : text.substring(0, end).split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                orders.add(PendingOrder.fromJournalLine(line));
+            } catch (RuntimeException e) {
+                System.err.println("Skipping unreadable journal entry in " + path + ": " + e.getMessage());
+            }
+        }
+        return orders;
+    }
+
+    // Empties the journal once everything in it is stored in SQLite
+    synchronized void clear() throws IOException {
+        channel.truncate(0);
+        channel.position(0);
+        if (sync) {
+            channel.force(false);
+        }
+    }
+
+    synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing order journal: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package database;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Write-behind queue for checkouts. submit() journals the order and returns, a background thread
+// then writes queued orders to SQLite, as many as are waiting (up to MAX_BATCH) per transaction.
+// The journal is emptied whenever the queue has been fully written. Errors that may go away (a busy
+// or full disk, a locked database) are retried with backoff while the orders stay journaled; only an
+// order SQLite rejects outright is moved to the failed journal and reported.
+class OrderWriter {
+    private static final int MAX_BATCH = 50;
+    private static final long STOP_TIMEOUT_SECONDS = 10;
+    private static final long RETRY_MIN_MILLIS = 100;
+    private static final long RETRY_MAX_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final PendingOrder STOP = new PendingOrder(-1, null, 0, null, List.of());
+
+    // SQLite result codes for orders that will fail however often they are retried
+    private static final int SQLITE_TOOBIG = 18;
+    private static final int SQLITE_CONSTRAINT = 19;
+    private static final int SQLITE_MISMATCH = 20;
+    private static final Set<Integer> PERMANENT_ERRORS = Set.of(SQLITE_TOOBIG, SQLITE_CONSTRAINT, SQLITE_MISMATCH);
+
+    // Saves a batch of orders in one transaction
+    interface BatchSaver {
+        void save(List<PendingOrder> orders) throws SQLException;
+    }
+
+    private final OrderJournal journal;
+    private final OrderJournal failedJournal;
+    private final BatchSaver saver;
+    private final Consumer<PendingOrder> onFailed;
+    private final BlockingQueue<PendingOrder> queue = new LinkedBlockingQueue<>();
+    private final CountDownLatch stopping = new CountDownLatch(1);  // Cuts retry backoff short
+    private final Thread thread;
+    private boolean keepJournal;  // An order could not be moved to the failed journal; only the journal has it
+
+    // Metrics
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+
+    // onFailed is called on the writer thread for each order moved to the failed journal
+    OrderWriter(OrderJournal journal, OrderJournal failedJournal, BatchSaver saver, Consumer<PendingOrder> onFailed) {
+        this.journal = journal;
+        this.failedJournal = failedJournal;
+        this.saver = saver;
+        this.onFailed = onFailed;
+        this.thread = new Thread(this::run, "order-writer");
+        thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    // Journals the order and queues it for writing; once this returns the sale is durable
+    void submit(PendingOrder order) throws IOException {
+        // Locked together with clearing the journal, so a journaled order is always in the queue
+        synchronized (this) {
+            journal.append(order);
+            queue.add(order);
+        }
+    }
+
+    private void run() {
+        List<PendingOrder> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            boolean stop = batch.removeIf(order -> order == STOP);
+            if (!batch.isEmpty()) {
+                boolean written;
+                try {
+                    written = write(batch);
+                } catch (RuntimeException e) {
+                    // Keep the writer alive; the orders stay journaled and are replayed on the next start
+                    System.err.println("Unexpected error writing " + batch.size() + " orders: " + e);
+                    e.printStackTrace();
+                    synchronized (this) {
+                        keepJournal = true;
+                    }
+                    written = true;
+                }
+                if (!written) {
+                    break;  // Stopped while retrying; the journal still has the orders for the next start
+                }
+                clearJournalIfDone();
+            }
+            batch.clear();
+            if (stop) {
+                break;
+            }
+        }
+    }
+
+    // Queues orders left in the journal by a previous run, before the writer is started. They are
+    // already journaled, and the journal is only emptied once they are written.
+    void replay(List<PendingOrder> orders) {
+        System.out.println("Replaying " + orders.size() + " journaled orders");
+        queue.addAll(orders);
+    }
+
+    // Writes the batch, false if the writer was stopped before it could
+    private boolean write(List<PendingOrder> batch) {
+        try {
+            return save(batch);
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error writing " + batch.size() + " orders, retrying one by one: " + e);
+        }
+
+        // Write the orders that can be written; move the rest to a separate journal for inspection
+        for (PendingOrder order : batch) {
+            try {
+                if (!save(List.of(order))) {
+                    return false;
+                }
+            } catch (SQLException | RuntimeException e) {
+                System.err.println("Error writing order #" + order.id() + ", setting it aside: " + e);
+                moveToFailed(order);
+            }
+        }
+        return true;
+    }
+
+    // Saves the orders, retrying transient errors with backoff. False if the writer was stopped first;
+    // throws the errors retrying cannot fix, including any RuntimeException from the saver.
+    private boolean save(List<PendingOrder> orders) throws SQLException {
+        long delay = RETRY_MIN_MILLIS;
+        while (true) {
+            try {
+                saver.save(orders);
+                batches.incrementAndGet();
+                written.addAndGet(orders.size());
+                return true;
+            } catch (SQLException e) {
+                if (isPermanent(e)) {
+                    throw e;
+                }
+                System.err.println("Error writing " + orders.size() + " orders, retrying in " + delay + " ms: "
+                        + e.getMessage());
+            }
+            try {
+                if (stopping.await(delay, TimeUnit.MILLISECONDS)) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            delay = Math.min(delay * 2, RETRY_MAX_MILLIS);
+        }
+    }
+
+    // Constraint violations (e.g. an unknown product), type mismatches and oversized values; anything
+    // else, including errors without an SQLite result code, may succeed on a later try
+    static boolean isPermanent(SQLException e) {
+        return PERMANENT_ERRORS.contains(e.getErrorCode() & 0xff);
+    }
+
+    private void moveToFailed(PendingOrder order) {
+        try {
+            failedJournal.append(order);
+        } catch (IOException e) {
+            System.err.println("Error recording failed order #" + order.id() + ", keeping it journaled: "
+                    + e.getMessage());
+            synchronized (this) {
+                keepJournal = true;
+            }
+            return;
+        }
+        try {
+            onFailed.accept(order);
+        } catch (RuntimeException e) {
+            System.err.println("Error reporting failed order #" + order.id() + ": " + e);
+        }
+    }
+
+    private synchronized void clearJournalIfDone() {
+        if (queue.isEmpty() && !keepJournal) {
+            try {
+                journal.clear();
+            } catch (IOException e) {
+                // Harmless, the orders in it are skipped when replayed
+                System.err.println("Error clearing order journal: " + e.getMessage());
+            }
+        }
+    }
+
+    // Writes what is queued and stops the writer; anything not written stays in the journal
+    void close() {
+        queue.add(STOP);
+        stopping.countDown();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(STOP_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            System.err.println("Order writer did not finish within " + STOP_TIMEOUT_SECONDS + " seconds");
+        }
+    }
+
+    int getQueueSize() {
+        return queue.size();
+    }
+
+    @Override
+    public String toString() {
+        long count = batches.get();
+        return String.format("orders written: %d in %d transactions (avg %.1f per transaction), queued: %d",
+                written.get(), count, count == 0 ? 0 : (double) written.get() / count, queue.size());
+    }
+}
@@ -0,0 +1,95 @@
+package database;
+
+import javafx.model.Money;
+import javafx.model.OrderSnapshot;
+import javafx.model.Payment;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+// An order as taken at checkout, with its id, time and lines fixed, so it can be journaled and
+// written to SQLite later. Each line carries its own item promotion plus a share of the order tier
+// discount in proportion to its value, so the rollup can report discount and net sales per product.
+// The payment is kept so the receipt can be reprinted. Money is in whole rupiah.
+record PendingOrder(long id, LocalDateTime orderDate, long total, Payment payment, List<Line> lines) {
+    record Line(long productId, int quantity, long pricePerUnit, long discount) {
+    }
+
+    static PendingOrder of(long id, LocalDateTime orderDate, OrderSnapshot order, Payment payment) {
+        Objects.requireNonNull(payment, "payment");
+        // The order tier discount was taken from the value left after item promotions
+        long afterItems = order.subtotal().minus(order.discount()).plus(order.orderDiscount()).rupiah();
+        long discount = order.orderDiscount().rupiah();
+        long discountLeft = discount;
+        int linesLeft = order.items().size();
+
+        List<Line> lines = new ArrayList<>();
+        for (OrderSnapshot.Item item : order.items()) {
+            int quantity = item.quantity();
+
+            // Rounded down to the rupiah; the last line takes the remainder so the line discounts add up exactly
+            long price = item.product().getPrice().rupiah();
+            long itemDiscount = item.itemDiscount().rupiah();
+            long share = --linesLeft == 0 || afterItems == 0
+                    ? discountLeft
+                    : Math.multiplyExact(discount, price * quantity - itemDiscount) / afterItems;
+            discountLeft -= share;
+
+            lines.add(new Line(item.product().getId(), quantity, price, itemDiscount + share));
+        }
+        return new PendingOrder(id, orderDate, order.total().rupiah(), payment, List.copyOf(lines));
+    }
+
+    // Order discount, the sum of the line discounts
+    long discount() {
+        long discount = 0;
+        for (Line line : lines) {
+            discount += line.discount();
+        }
+        return discount;
+    }
+
+    String formattedDate() {
+        return orderDate.format(Database.ORDER_DATE_FORMAT);
+    }
+
+    // One journal line: id|date|total|productId,quantity,price,discount;...|ePayment|amount|change
+    String toJournalLine() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(id).append('|').append(formattedDate()).append('|').append(total).append('|');
+        for (int i = 0; i < lines.size(); i++) {
+            Line line = lines.get(i);
+            if (i > 0) {
+                sb.append(';');
+            }
+            sb.append(line.productId()).append(',').append(line.quantity()).append(',')
+                    .append(line.pricePerUnit()).append(',').append(line.discount());
+        }
+        sb.append('|').append(payment.isEPayment()).append('|').append(payment.amount().rupiah())
+                .append('|').append(payment.change().rupiah());
+        return sb.toString();
+    }
+
+    static PendingOrder fromJournalLine(String text) {
+        String[] fields = text.split("\\|", -1);
+        if (fields.length != 7) {
+            throw new IllegalArgumentException("Malformed journal line: " + text);
+        }
+
+        List<Line> lines = new ArrayList<>();
+        for (String item : fields[3].split(";")) {
+            String[] values = item.split(",");
+            if (values.length != 4) {
+                throw new IllegalArgumentException("Malformed journal line: " + text);
+            }
+            lines.add(new Line(Long.parseLong(values[0]), Integer.parseInt(values[1]),
+                    Long.parseLong(values[2]), Long.parseLong(values[3])));
+        }
+        Payment payment = new Payment(Boolean.parseBoolean(fields[4]),
+                Money.of(Long.parseLong(fields[5])), Money.of(Long.parseLong(fields[6])));
+        return new PendingOrder(Long.parseLong(fields[0]), LocalDateTime.parse(fields[1], Database.ORDER_DATE_FORMAT),
+                Long.parseLong(fields[2]), payment, List.copyOf(lines));
+    }
+}
@@ -0,0 +1,132 @@
+package database;
+
+import javafx.model.Product;
+import javafx.model.ProductType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+// In-memory copy of the products table shared by all screens. It is loaded once and then kept
+// up to date by Database as products are added, edited and removed, so screens never query
+// SQLite for the catalog. Reads are lock-free: every change publishes a new immutable snapshot
+// with the products indexed by id, by type and by barcode/PLU code. The search index is updated
+// one product at a time alongside.
+public class ProductCatalog {
+    private static final Comparator<Product> DISPLAY_ORDER =
+            Comparator.comparing((Product p) -> p.getType().name()).thenComparing(Product::getVariant);
+
+    private record Listener(Runnable action, Executor executor) {
+    }
+
+    private record Snapshot(List<Product> all,
+                            Map<ProductType, List<Product>> byType,
+                            Map<Long, Product> byId,
+                            Map<String, Product> byCode) {
+    }
+
+    private final Map<Long, Product> products = new HashMap<>();  // Guarded by this
+    private volatile Snapshot snapshot = buildSnapshot(Map.of());
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex(DISPLAY_ORDER);
+
+    // All products, ordered by type and variant
+    public List<Product> getAll() {
+        return snapshot.all();
+    }
+
+    public List<Product> getByType(ProductType type) {
+        return snapshot.byType().getOrDefault(type, List.of());
+    }
+
+    // Types that have at least one product
+    public Set<ProductType> getTypes() {
+        return snapshot.byType().keySet();
+    }
+
+    // The product with the id, or null if it has been removed
+    public Product getById(long id) {
+        return snapshot.byId().get(id);
+    }
+
+    // The product with the barcode or PLU code, or null if no product has it
+    public Product getByCode(String code) {
+        String key = Product.normalizeCode(code);
+        return key != null ? snapshot.byCode().get(key) : null;
+    }
+
+    // Up to limit products whose type, variant or code match every word of the query, best matches
+    // first; matches a word's start or, for three letters or more, anywhere inside it
+    public List<Product> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    // Runs listener through executor after every change to the catalog. Changes are made on database
+    // worker threads, so screens pass Platform::runLater to be called on the JavaFX thread.
+    public void addListener(Runnable listener, Executor executor) {
+        listeners.add(new Listener(listener, executor));
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.removeIf(registered -> registered.action() == listener);
+    }
+
+    synchronized void load(List<Product> loaded) {
+        products.clear();
+        searchIndex.clear();
+        for (Product product : loaded) {
+            products.put(product.getId(), product);
+            searchIndex.put(product);
+        }
+        publish();
+    }
+
+    // Adds a saved product, or replaces the one with the same id
+    synchronized void put(Product product) {
+        products.put(product.getId(), product);
+        searchIndex.put(product);
+        publish();
+    }
+
+    synchronized void remove(long id) {
+        if (products.remove(id) != null) {
+            searchIndex.remove(id);
+            publish();
+        }
+    }
+
+    private void publish() {
+        snapshot = buildSnapshot(products);
+        for (Listener listener : listeners) {
+            listener.executor().execute(listener.action());
+        }
+    }
+
+    private static Snapshot buildSnapshot(Map<Long, Product> products) {
+        List<Product> all = new ArrayList<>(products.values());
+        all.sort(DISPLAY_ORDER);
+
+        Map<ProductType, List<Product>> byType = new EnumMap<>(ProductType.class);
+        Map<String, Product> byCode = new HashMap<>();
+        for (Product product : all) {
+            byType.computeIfAbsent(product.getType(), type -> new ArrayList<>()).add(product);
+            if (product.getCode() != null) {
+                byCode.put(product.getCode(), product);
+            }
+        }
+        byType.replaceAll((type, list) -> Collections.unmodifiableList(list));
+
+        return new Snapshot(
+                Collections.unmodifiableList(all),
+                Collections.unmodifiableMap(byType),
+                Collections.unmodifiableMap(new HashMap<>(products)),
+                Collections.unmodifiableMap(byCode));
+    }
+}
@@ -0,0 +1,189 @@
+package database;
+
+import javafx.model.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Type-ahead search over the catalog. Each product is split into lower-case words from its type name,
+// variant and code; words are kept in a sorted map for prefix lookups and in a trigram map so a query
+// can also match inside a word ("choc" finds "Darkchocolate"). Products are added and removed one at
+// a time as the catalog changes, so the index is never rebuilt. Every query word must match; results
+// are ranked by how well they match, then in catalog display order.
+class ProductSearchIndex {
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int INFIX = 1;
+
+    private record Entry(Product product, Set<String> words, Set<String> trigrams) {
+    }
+
+    private record Hit(Product product, int score) {
+    }
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final NavigableMap<String, Set<Long>> byWord = new TreeMap<>();
+    private final Map<String, Set<Long>> byTrigram = new HashMap<>();
+    private final Comparator<Product> displayOrder;
+
+    ProductSearchIndex(Comparator<Product> displayOrder) {
+        this.displayOrder = displayOrder;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        byWord.clear();
+        byTrigram.clear();
+    }
+
+    // Adds a product, or replaces the one with the same id
+    synchronized void put(Product product) {
+        remove(product.getId());
+
+        Set<String> words = new HashSet<>(words(product.getType().getDisplayName()));
+        words.addAll(words(product.getVariant()));
+        if (product.getCode() != null) {
+            words.addAll(words(product.getCode()));
+        }
+        Set<String> trigrams = new HashSet<>();
+        for (String word : words) {
+            trigrams.addAll(trigrams(word));
+        }
+
+        entries.put(product.getId(), new Entry(product, words, trigrams));
+        for (String word : words) {
+            byWord.computeIfAbsent(word, w -> new HashSet<>()).add(product.getId());
+        }
+        for (String trigram : trigrams) {
+            byTrigram.computeIfAbsent(trigram, t -> new HashSet<>()).add(product.getId());
+        }
+    }
+
+    synchronized void remove(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (String word : entry.words()) {
+            removeId(byWord, word, id);
+        }
+        for (String trigram : entry.trigrams()) {
+            removeId(byTrigram, trigram, id);
+        }
+    }
+
+    // Up to limit products matching every word of the query, best matches first
+    synchronized List<Product> search(String query, int limit) {
+        List<String> terms = words(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<Long, Integer> scores = null;  // Product id to score, for products matching every term so far
+        for (String term : terms) {
+            Map<Long, Integer> matches = match(term);
+            if (scores == null) {
+                scores = matches;
+            } else {
+                scores.keySet().retainAll(matches.keySet());
+                scores.replaceAll((id, score) -> score + matches.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(scores.size());
+        for (Map.Entry<Long, Integer> score : scores.entrySet()) {
+            hits.add(new Hit(entries.get(score.getKey()).product(), score.getValue()));
+        }
+        hits.sort(Comparator.comparingInt(Hit::score).reversed()
+                .thenComparing(Hit::product, displayOrder));
+
+        List<Product> results = new ArrayList<>(Math.min(limit, hits.size()));
+        for (Hit hit : hits.subList(0, Math.min(limit, hits.size()))) {
+            results.add(hit.product());
+        }
+        return results;
+    }
+
+    // Products with a word matching term, scored by the best way it matches
+    private Map<Long, Integer> match(String term) {
+        Map<Long, Integer> matches = new HashMap<>();
+        NavigableMap<String, Set<Long>> prefixed = byWord.subMap(term, true, term + Character.MAX_VALUE, false);
+        for (Map.Entry<String, Set<Long>> word : prefixed.entrySet()) {
+            int score = word.getKey().equals(term) ? EXACT : PREFIX;
+            for (Long id : word.getValue()) {
+                matches.merge(id, score, Math::max);
+            }
+        }
+
+        // Matches inside a word: candidates share all of the term's trigrams, then are checked for real
+        if (term.length() >= 3) {
+            for (Long id : trigramCandidates(term)) {
+                if (!matches.containsKey(id) && containsInWord(entries.get(id), term)) {
+                    matches.put(id, INFIX);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private Set<Long> trigramCandidates(String term) {
+        Set<Long> candidates = null;
+        for (String trigram : trigrams(term)) {
+            Set<Long> ids = byTrigram.get(trigram);
+            if (ids == null) {
+                return Set.of();
+            }
+            if (candidates == null) {
+                candidates = new HashSet<>(ids);
+            } else {
+                candidates.retainAll(ids);
+            }
+        }
+        return candidates != null ? candidates : Set.of();
+    }
+
+    private static boolean containsInWord(Entry entry, String term) {
+        for (String word : entry.words()) {
+            if (word.contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void removeId(Map<String, Set<Long>> index, String key, long id) {
+        Set<Long> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static List<String> trigrams(String word) {
+        List<String> trigrams = new ArrayList<>();
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            trigrams.add(word.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+}
@@ -0,0 +1,136 @@
+package database;
+
+import javafx.model.ReceiptLine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// Archive of printed receipts. Each receipt's layout is appended to one segment file per day, and an
+// index file maps order ids to the segment and offset, so a receipt can be read back (and rendered
+// as a PDF) for a reprint or export without keeping a file per sale.
+//
+// Segment record: "R|<orderId>|<line count>" followed by one "<kind>|<text>" line per receipt line.
+// Index entry: order id, day of the segment (epoch day) and offset, as three longs.
+public class ReceiptArchive {
+    private static final String INDEX_FILE = "receipts.idx";
+    private static final DateTimeFormatter SEGMENT_NAME = DateTimeFormatter.ofPattern("'receipts-'yyyyMMdd'.log'");
+    private static final int INDEX_ENTRY_BYTES = 3 * Long.BYTES;
+    // Line breaks, including a lone '\r', would split a receipt line in two when it is read back
+    private static final Pattern CONTROL_CHARACTERS = Pattern.compile("\\p{Cntrl}");
+
+    private record Location(LocalDate day, long offset) {
+    }
+
+    private final Path directory;
+    private Map<Long, Location> index;  // Loaded on first use
+
+    public ReceiptArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    // Appends a receipt; orderId 0 stores it without indexing (the order was never saved)
+    public synchronized void append(long orderId, LocalDate day, List<ReceiptLine> lines) throws IOException {
+        StringBuilder record = new StringBuilder();
+        record.append("R|").append(orderId).append('|').append(lines.size()).append('\n');
+        for (ReceiptLine line : lines) {
+            record.append(line.kind().name()).append('|')
+                    .append(CONTROL_CHARACTERS.matcher(line.text()).replaceAll(" ")).append('\n');
+        }
+
+        long offset;
+        try (FileChannel segment = FileChannel.open(directory.resolve(day.format(SEGMENT_NAME)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            offset = segment.size();
+            writeFully(segment, ByteBuffer.wrap(record.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        if (orderId > 0) {
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            entry.putLong(orderId).putLong(day.toEpochDay()).putLong(offset).flip();
+            try (FileChannel indexFile = FileChannel.open(directory.resolve(INDEX_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                writeFully(indexFile, entry);
+            }
+            loadIndex().put(orderId, new Location(day, offset));
+        }
+    }
+
+    // The archived receipt of an order, or null if none was archived
+    public synchronized List<ReceiptLine> read(long orderId) throws IOException {
+        Location location = loadIndex().get(orderId);
+        if (location == null) {
+            return null;
+        }
+
+        try (FileChannel segment = FileChannel.open(directory.resolve(location.day().format(SEGMENT_NAME)),
+                StandardOpenOption.READ)) {
+            segment.position(location.offset());
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(segment), StandardCharsets.UTF_8));
+
+            String[] header = readLine(reader).split("\\|");
+            if (header.length != 3 || !header[0].equals("R") || Long.parseLong(header[1]) != orderId) {
+                throw new IOException("Receipt archive index is out of date for order #" + orderId);
+            }
+
+            int count = Integer.parseInt(header[2]);
+            List<ReceiptLine> lines = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String line = readLine(reader);
+                int separator = line.indexOf('|');
+                lines.add(ReceiptLine.of(ReceiptLine.Kind.valueOf(line.substring(0, separator)),
+                        line.substring(separator + 1)));
+            }
+            return lines;
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt receipt archive entry for order #" + orderId, e);
+        }
+    }
+
+    // Reads the index once; later entries for the same order (reprints) replace earlier ones
+    private Map<Long, Location> loadIndex() throws IOException {
+        if (index == null) {
+            Map<Long, Location> entries = new HashMap<>();
+            Path path = directory.resolve(INDEX_FILE);
+            if (Files.exists(path)) {
+                ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+                while (buffer.remaining() >= INDEX_ENTRY_BYTES) {
+                    long orderId = buffer.getLong();
+                    LocalDate day = LocalDate.ofEpochDay(buffer.getLong());
+                    entries.put(orderId, new Location(day, buffer.getLong()));
+                }
+            }
+            index = entries;
+        }
+        return index;
+    }
+
+    private static String readLine(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+        if (line == null) {
+            throw new IOException("Unexpected end of receipt archive segment");
+        }
+        return line;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Prepared statements of one connection, keyed by SQL text, so SQLite compiles each query once.
+// Only used by whoever has borrowed the connection, so it needs no locking. Statements handed out
+// stay owned by the cache: callers close their result sets but never the statement itself.
+class StatementCache {
+    private static final String GENERATED_KEYS_PREFIX = "keys:";
+
+    private final Connection conn;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final Map<String, PreparedStatement> statements;
+
+    StatementCache(Connection conn, int capacity, AtomicLong hits, AtomicLong misses) {
+        this.conn = conn;
+        this.hits = hits;
+        this.misses = misses;
+        // Least recently used statements are closed once the cache is full
+        this.statements = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > capacity) {
+                    closeQuietly(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    PreparedStatement prepare(String sql) throws SQLException {
+        return prepare(sql, false);
+    }
+
+    PreparedStatement prepareWithGeneratedKeys(String sql) throws SQLException {
+        return prepare(sql, true);
+    }
+
+    private PreparedStatement prepare(String sql, boolean generatedKeys) throws SQLException {
+        String key = generatedKeys ? GENERATED_KEYS_PREFIX + sql : sql;
+        PreparedStatement pstmt = statements.get(key);
+        if (pstmt != null && !pstmt.isClosed()) {
+            hits.incrementAndGet();
+            pstmt.clearParameters();
+            return pstmt;
+        }
+
+        misses.incrementAndGet();
+        pstmt = generatedKeys
+                ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : conn.prepareStatement(sql);
+        statements.put(key, pstmt);
+        return pstmt;
+    }
+
+    void close() {
+        for (PreparedStatement pstmt : statements.values()) {
+            closeQuietly(pstmt);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing cached statement: " + e.getMessage());
+        }
+    }
+}
@@ -3,20 +3,18 @@ package javafx;
 import database.Database;
 import javafx.application.Application;
 import javafx.application.Platform;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
+import javafx.model.Money;
 import javafx.scene.control.Alert;
 import javafx.stage.Stage;
+import javafx.utils.DatabaseTasks;
+import javafx.utils.PrintSpooler;
+import javafx.utils.SceneUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_HEIGHT;
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_WIDTH;
-
 public class MainApp extends Application {
 
     private static Stage primaryStage;
@@ -26,7 +24,8 @@ public class MainApp extends Application {
         try {
             logSystemInfo();
 
-            // Initialize database with error handling
+            // Initialize database with error handling; orders it replays may already be set aside
+            Database.setFailedOrderListener(this::showFailedOrder, Platform::runLater);
             try {
                 System.out.println("Initializing database...");
                 Database.initialize();
@@ -41,43 +40,20 @@ public class MainApp extends Application {
             // Store the primary stage reference
             primaryStage = stage;
 
-            // Load the home page scene with error handling
-            Parent root;
+            // Load the home page with error handling; SceneUtil creates the window's scene and stylesheet
             try {
                 System.out.println("Loading FXML...");
-                String fxmlPath = "/javafx/HomePage.fxml";
-                var resource = getClass().getResource(fxmlPath);
-                if (resource == null) {
-                    throw new IOException("Cannot find resource: " + fxmlPath);
+                for (String resource : new String[]{"/javafx/HomePage.fxml", "/css/HomePage.css"}) {
+                    if (getClass().getResource(resource) == null) {
+                        throw new IOException("Cannot find resource: " + resource);
+                    }
                 }
-                root = FXMLLoader.load(resource);
+                SceneUtil.show("HomePage.fxml", "POS");
                 System.out.println("FXML loaded successfully");
             } catch (Exception e) {
                 System.err.println("FXML loading failed: " + e.getMessage());
                 e.printStackTrace();
                 showError("Loading Error", "Failed to load application interface: " + e.getMessage());
-                return;
-            }
-
-            // Load CSS with error handling
-            try {
-                System.out.println("Loading CSS...");
-                String cssPath = "/css/HomePage.css";
-                var cssResource = getClass().getResource(cssPath);
-                if (cssResource == null) {
-                    throw new IOException("Cannot find resource: " + cssPath);
-                }
-                Scene scene = new Scene(root, DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT);
-                scene.getStylesheets().add(cssResource.toExternalForm());
-                System.out.println("CSS loaded successfully");
-
-                primaryStage.setTitle("POS");
-                primaryStage.setScene(scene);
-                primaryStage.show();
-            } catch (Exception e) {
-                System.err.println("CSS loading failed: " + e.getMessage());
-                e.printStackTrace();
-                showError("Style Error", "Failed to load application styles: " + e.getMessage());
             }
 
         } catch (Exception e) {
@@ -87,6 +63,13 @@ public class MainApp extends Application {
         }
     }
 
+    @Override
+    public void stop() {
+        PrintSpooler.shutdown();
+        DatabaseTasks.shutdown();  // Finish pending saves first
+        Database.shutdown();
+    }
+
     private void logSystemInfo() {
         System.out.println("Application starting...");
         System.out.println("Working Directory: " + System.getProperty("user.dir"));
@@ -114,6 +97,16 @@ public class MainApp extends Application {
         });
     }
 
+    // The sale went through at the till, but it is missing from the order history and sales totals
+    private void showFailedOrder(long orderId, Money total) {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Order Not Saved");
+        alert.setHeaderText(null);
+        alert.setContentText("Order #" + orderId + " (" + total.format() + ") could not be saved to the database. "
+                + "It has been kept in orders.failed in the data folder.");
+        alert.show();
+    }
+
     public static Stage getPrimaryStage() {
         return primaryStage;
     }
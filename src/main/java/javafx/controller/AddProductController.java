@@ -2,24 +2,19 @@ package javafx.controller;
 
 import database.Database;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
-import javafx.stage.Stage;
 import javafx.util.StringConverter;
+import javafx.model.Money;
 import javafx.model.Product;
 import javafx.model.ProductType;
+import javafx.utils.DatabaseTasks;
+import javafx.utils.Refreshable;
+import javafx.utils.SceneUtil;
 
-import java.sql.SQLException;
-
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_HEIGHT;
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_WIDTH;
-
-public class AddProductController {
+public class AddProductController implements Refreshable {
     @FXML
     private ComboBox<ProductType> typeComboBox;
     @FXML
@@ -27,6 +22,8 @@ public class AddProductController {
     @FXML
     private TextField priceField;
     @FXML
+    private TextField codeField;
+    @FXML
     private Label statusLabel;
     @FXML
     private Button backButton;
@@ -48,6 +45,13 @@ public class AddProductController {
         });
     }
 
+    // Shown again from the home page: start with an empty form
+    @Override
+    public void refresh() {
+        clearFields();
+        statusLabel.setText("");
+    }
+
     @FXML
     public void handleAddProduct() {
         ProductType selectedType = typeComboBox.getValue();
@@ -68,40 +72,41 @@ public class AddProductController {
             return;
         }
 
+        Money price;
         try {
-            double price = Double.parseDouble(priceText);
-            Product product = new Product(selectedType, variant, price);
-            Database.addProduct(product);
-
-            statusLabel.setText("Product added successfully!");
-            clearFields();
+            price = Money.parse(priceText);
         } catch (NumberFormatException e) {
-            statusLabel.setText("Price must be a number.");
-        } catch (SQLException e) {
-            statusLabel.setText("Error adding product: " + e.getMessage());
+            statusLabel.setText("Price must be a whole number of rupiah.");
+            return;
+        }
+
+        Product product = new Product(0, selectedType, variant, price, codeField.getText());
+        Product codeOwner = Database.getCatalog().getByCode(product.getCode());
+        if (codeOwner != null) {
+            statusLabel.setText("Code " + product.getCode() + " is already used by " + codeOwner.getVariant() + ".");
+            return;
         }
+        statusLabel.setText("Saving...");
+        DatabaseTasks.run(
+                () -> Database.addProduct(product),
+                saved -> {
+                    statusLabel.setText("Product added successfully!");
+                    clearFields();
+                },
+                e -> statusLabel.setText("Error adding product: " + e.getMessage()));
     }
 
     private void clearFields() {
         typeComboBox.setValue(null);
         variantField.clear();
         priceField.clear();
+        codeField.clear();
     }
 
     @FXML
     public void handleBack() {
         try {
-            // Load the main POS screen
-            Stage stage = (Stage) backButton.getScene().getWindow();
-            Parent root = FXMLLoader.load(getClass().getResource("/javafx/HomePage.fxml"));
-
-            // Create a new Scene with CSS applied
-            Scene scene = new Scene(root, DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT);
-            scene.getStylesheets().add(getClass().getResource("/css/HomePage.css").toExternalForm()); // Update the path accordingly
-
-            stage.setScene(scene);
-            stage.setTitle("POS");
-            stage.show();
+            SceneUtil.show("HomePage.fxml", "POS");
         } catch (Exception e) {
             e.printStackTrace();
             statusLabel.setText("Error loading POS screen: " + e.getMessage());
@@ -1,5 +1,7 @@
 package javafx.controller;
 
+import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -10,28 +12,32 @@ import javafx.model.ProductType;
 import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
-import javafx.stage.Stage;
-import javafx.scene.Scene;
 import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import database.Database;
+import javafx.model.Money;
 import javafx.model.Order;
+import javafx.model.OrderSnapshot;
+import javafx.model.Payment;
 import javafx.model.Product;
+import javafx.model.Receipt;
+import javafx.utils.DatabaseTasks;
+import javafx.utils.ProductSearchBox;
+import javafx.utils.Refreshable;
+import javafx.utils.SceneUtil;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
-import java.util.Set;
 import javafx.util.StringConverter;
 
-import java.sql.SQLException;
 import java.util.List;
 
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_HEIGHT;
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_WIDTH;
-
-public class CalculateTotalController {
+public class CalculateTotalController implements Refreshable {
 
+    @FXML
+    private VBox itemEntryPane;
+    @FXML
+    private TextField searchField;
     @FXML
     private ComboBox<ProductType> typeComboBox;
     @FXML
@@ -39,6 +45,10 @@ public class CalculateTotalController {
     @FXML
     private TextField quantityTextField;
     @FXML
+    private TextField scanField;
+    @FXML
+    private Label scanStatusLabel;
+    @FXML
     private Label totalLabel;
     @FXML
     private Label changeLabel;
@@ -50,27 +60,67 @@ public class CalculateTotalController {
     private Button checkoutButton;
     @FXML
     private Button backButton;
+    @FXML
+    private ProgressIndicator savingIndicator;
 
     private Order currentOrder;
-    private double lastCashGiven = 0.0;
-    private double lastChange = 0.0;
-    private List<Product> allProducts;
+    private ProductSearchBox searchBox;
+    private Money lastCashGiven = Money.ZERO;
+    private Money lastChange = Money.ZERO;
 
     public void initialize() {
-        currentOrder = new Order();
+        currentOrder = new Order(Database.getPricingPlan());
         loadProducts();
         setupComboBoxes();
+        bindTotals();
         updateCheckoutButton();
+        savingIndicator.visibleProperty().bind(DatabaseTasks.busyProperty());
+        Platform.runLater(scanField::requestFocus);  // Ready for the scanner as soon as the till opens
     }
 
-    private void loadProducts() {
-        allProducts = Database.getAllProducts();
+    // Shown again, from the home page or after a receipt: start a new order with the current catalog and promotions.
+    // The old order is replaced rather than cleared, since a checkout may still be journaling it.
+    @Override
+    public void refresh() {
+        currentOrder = new Order(Database.getPricingPlan());
+        bindTotals();
+        lastCashGiven = Money.ZERO;
+        lastChange = Money.ZERO;
+        changeLabel.setVisible(false);
+
+        searchField.clear();
+        typeComboBox.getSelectionModel().clearSelection();
+        typeComboBox.getItems().setAll(Database.getCatalog().getTypes());
+        variantComboBox.getItems().clear();
+        quantityTextField.clear();
+        scanField.clear();
+        scanStatusLabel.setText("");
 
-        // Populate type ComboBox
-        Set<ProductType> types = allProducts.stream()
-                .map(Product::getType)
-                .collect(Collectors.toSet());
-        typeComboBox.getItems().addAll(types);
+        itemEntryPane.setDisable(false);
+        backButton.setDisable(false);
+        updateCheckoutButton();
+        Platform.runLater(scanField::requestFocus);
+    }
+
+    // The catalog changed: list the types that have products now, keeping the selected one if it still
+    // has some. Registered before the search box, which then lists the variants again.
+    private void refreshTypes() {
+        List<ProductType> types = List.copyOf(Database.getCatalog().getTypes());
+        if (typeComboBox.getItems().equals(types)) {
+            return;
+        }
+        ProductType selected = typeComboBox.getValue();
+        typeComboBox.getItems().setAll(types);
+        if (selected == null || !types.contains(selected)) {
+            typeComboBox.getSelectionModel().clearSelection();
+        } else if (typeComboBox.getValue() != selected) {
+            typeComboBox.setValue(selected);
+        }
+    }
+
+    private void loadProducts() {
+        // Populate type ComboBox with the types that have products
+        typeComboBox.getItems().setAll(Database.getCatalog().getTypes());
 
         // Setup type ComboBox display
         typeComboBox.setConverter(new StringConverter<>() {
@@ -87,14 +137,24 @@ public class CalculateTotalController {
     }
 
     private void setupComboBoxes() {
+        Database.getCatalog().addListener(this::refreshTypes, Platform::runLater);
+
+        // Searching lists matching variants of every type; without a search the variants of the selected type
+        searchBox = new ProductSearchBox(searchField, variantComboBox, () -> {
+            ProductType type = typeComboBox.getValue();
+            return type != null ? Database.getCatalog().getByType(type) : List.of();
+        });
+        searchField.textProperty().addListener((obs, oldText, newText) -> {
+            if (searchBox.isSearching()) {
+                typeComboBox.getSelectionModel().clearSelection();
+            }
+        });
+
         // When type is selected, update variant ComboBox
         typeComboBox.valueProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
-                List<Product> variants = allProducts.stream()
-                        .filter(p -> p.getType() == newVal)
-                        .collect(Collectors.toList());
-                variantComboBox.getItems().clear();
-                variantComboBox.getItems().addAll(variants);
+                searchField.clear();
+                variantComboBox.getItems().setAll(Database.getCatalog().getByType(newVal));
             }
         });
 
@@ -106,9 +166,7 @@ public class CalculateTotalController {
                 if (empty || product == null) {
                     setText(null);
                 } else {
-                    setText(String.format("%s (Rp %,d)",
-                            product.getVariant(),
-                            (long)product.getPrice()));
+                    setText(variantText(product));
                 }
             }
         });
@@ -120,14 +178,20 @@ public class CalculateTotalController {
                 if (empty || product == null) {
                     setText(null);
                 } else {
-                    setText(String.format("%s (Rp %,d)",
-                            product.getVariant(),
-                            (long)product.getPrice()));
+                    setText(variantText(product));
                 }
             }
         });
     }
 
+    // Search results mix types, so they are shown with their type
+    private String variantText(Product product) {
+        if (searchBox.isSearching()) {
+            return product.toString();
+        }
+        return String.format("%s (%s)", product.getVariant(), product.getPrice().format());
+    }
+
     @FXML
     private void handleAddButton() {
         Product selectedProduct = variantComboBox.getSelectionModel().getSelectedItem();
@@ -139,45 +203,93 @@ public class CalculateTotalController {
 
         int quantity = Integer.parseInt(quantityStr);
         currentOrder.addItem(selectedProduct, quantity);
-        updateTotalDisplay();
-        updateCheckoutButton();
 
         // Clear inputs after adding
+        searchField.clear();
         typeComboBox.getSelectionModel().clearSelection();
         variantComboBox.getItems().clear();
         quantityTextField.clear();
+        scanField.requestFocus();
     }
 
-    private void updateTotalDisplay() {
-        double subtotal = currentOrder.getSubtotal();
-        double discount = currentOrder.getDiscount();
-        double finalTotal = currentOrder.getTotal();
-
-        // Update labels
-        totalLabel.setText(String.format("Subtotal: Rp %,d", (long)subtotal));
-
-        if (discount > 0) {
-            discountLabel.setVisible(true);
-            discountLabel.setText(String.format("%s\nDiscount: -Rp %,d",
-                    currentOrder.getDiscountDescription(),
-                    (long)discount));
-        } else {
-            discountLabel.setVisible(false);
+    // A scanner types the code and presses Enter, so a whole line is added in one scan.
+    // "3*8991234567890" adds three; the lookup is a hash lookup in the catalog, no database query.
+    @FXML
+    private void handleScan() {
+        String input = scanField.getText().trim();
+        scanField.clear();
+        if (input.isEmpty()) {
+            return;
         }
 
-        finalTotalLabel.setText(String.format("Final Total: Rp %,d", (long)finalTotal));
+        int quantity = 1;
+        String code = input;
+        int star = input.indexOf('*');
+        if (star >= 0) {
+            try {
+                quantity = Integer.parseInt(input.substring(0, star).trim());
+            } catch (NumberFormatException e) {
+                quantity = 0;
+            }
+            code = input.substring(star + 1);
+            if (quantity <= 0) {
+                showScanError("Invalid quantity: " + input);
+                return;
+            }
+        }
 
-        // If we have previous cash/change information, update that display too
-        if (lastCashGiven > 0) {
-            changeLabel.setVisible(true);
-            changeLabel.setText(String.format("Cash: Rp %,d | Change: Rp %,d",
-                    (long)lastCashGiven, (long)lastChange));
+        Product product = Database.getCatalog().getByCode(code);
+        if (product == null) {
+            showScanError("Unknown code: " + code.trim());
+            return;
         }
+        currentOrder.addItem(product, quantity);
+        scanStatusLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: black;");
+        scanStatusLabel.setText(String.format("Added %d x %s - %s", quantity,
+                product.getType().getDisplayName(), product.getVariant()));
+    }
+
+    // Shown beside the scan field rather than in a dialog, so the next scan is not typed into an alert
+    private void showScanError(String message) {
+        scanStatusLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #e74c3c;");
+        scanStatusLabel.setText(message);
+    }
+
+    // The labels follow the order's running totals and repaint only when a total changes;
+    // bound again to each new order
+    private void bindTotals() {
+        totalLabel.textProperty().bind(Bindings.createStringBinding(
+                () -> "Subtotal: " + currentOrder.getSubtotal().format(),
+                currentOrder.subtotalProperty()));
+
+        discountLabel.visibleProperty().bind(Bindings.createBooleanBinding(
+                () -> currentOrder.getDiscount().isPositive(),
+                currentOrder.discountProperty()));
+        discountLabel.textProperty().bind(Bindings.createStringBinding(
+                () -> String.format("%s\nDiscount: -%s",
+                        currentOrder.getDiscountDescription(),
+                        currentOrder.getDiscount().format()),
+                currentOrder.discountProperty(), currentOrder.discountDescriptionProperty()));
+
+        finalTotalLabel.textProperty().bind(Bindings.createStringBinding(
+                () -> "Final Total: " + currentOrder.getTotal().format(),
+                currentOrder.totalProperty()));
+
+        currentOrder.emptyProperty().addListener((obs, wasEmpty, isEmpty) -> updateCheckoutButton());
+
+        // If we have previous cash/change information, update that display too
+        currentOrder.totalProperty().addListener((obs, oldTotal, newTotal) -> {
+            if (lastCashGiven.isPositive()) {
+                changeLabel.setVisible(true);
+                changeLabel.setText(String.format("Cash: %s | Change: %s",
+                        lastCashGiven.format(), lastChange.format()));
+            }
+        });
     }
 
     private boolean validateInput(Product selectedProduct, String quantityStr) {
-        if (typeComboBox.getValue() == null) {
-            showAlert("Error", "Please select a product type.");
+        if (selectedProduct == null && typeComboBox.getValue() == null && !searchBox.isSearching()) {
+            showAlert("Error", "Please select a product type or search for a product.");
             return false;
         }
         if (selectedProduct == null) {
@@ -199,10 +311,11 @@ public class CalculateTotalController {
 
     @FXML
     private void handleCheckout() {
-        if (currentOrder.getItems().isEmpty()) {
+        if (currentOrder.isEmpty()) {
             showAlert("Error", "Cannot checkout, no items in the order.");
             return;
         }
+        currentOrder.reprice();  // Promotions as of the time of sale, e.g. a happy hour that just ended
 
         // Create a custom dialog
         Dialog<String> dialog = new Dialog<>();
@@ -223,7 +336,7 @@ public class CalculateTotalController {
         Button correctAmountBtn = new Button("Exact Amount");
         correctAmountBtn.setMaxWidth(Double.MAX_VALUE); // Make button full width
         correctAmountBtn.setOnAction(e -> {
-            cashInput.setText(String.format("%.0f", currentOrder.getTotal()));
+            cashInput.setText(Long.toString(currentOrder.getTotal().rupiah()));
         });
         layout.getChildren().add(correctAmountBtn);
 
@@ -231,7 +344,7 @@ public class CalculateTotalController {
         Button ePaymentBtn = new Button("E-Payment");
         ePaymentBtn.setMaxWidth(Double.MAX_VALUE); // Make button full width
         ePaymentBtn.setOnAction(e -> {
-            cashInput.setText(String.format("%.0f", currentOrder.getTotal()));
+            cashInput.setText(Long.toString(currentOrder.getTotal().rupiah()));
             dialog.setResult("epayment");
             dialog.close();
         });
@@ -266,21 +379,19 @@ public class CalculateTotalController {
                     processCheckout(currentOrder.getTotal(), true);
                 } else {
                     // Handle cash payment case
-                    String cleanValue = result.replace(",", "");
-                    double cashGiven = Double.parseDouble(cleanValue);
-                    processCheckout(cashGiven, false);
+                    processCheckout(Money.parse(result), false);
                 }
             } catch (NumberFormatException e) {
-                showAlert("Error", "Invalid input. Please enter a valid number.");
+                showAlert("Error", "Invalid input. Please enter a whole number of rupiah.");
             }
         });
     }
 
-    private void processCheckout(double cashGiven, boolean isEPayment) {
-        double finalTotal = currentOrder.getTotal(); // This is the discounted total
-        double change = cashGiven - finalTotal;
+    private void processCheckout(Money cashGiven, boolean isEPayment) {
+        Money finalTotal = currentOrder.getTotal(); // This is the discounted total
+        Money change = cashGiven.minus(finalTotal);
 
-        if (change < 0) {
+        if (change.isNegative()) {
             showAlert("Error", "Not enough cash given!");
             return;
         }
@@ -291,9 +402,9 @@ public class CalculateTotalController {
 
         // Update the display immediately
         changeLabel.setVisible(true);
-        changeLabel.setText(String.format("%s: Rp %,d | Change: Rp %,d",
+        changeLabel.setText(String.format("%s: %s | Change: %s",
                 isEPayment ? "E-payment" : "Cash",
-                (long)cashGiven, (long)change));
+                cashGiven.format(), change.format()));
 
         // Show proceed to receipt confirmation
         Alert confirmReceipt = new Alert(Alert.AlertType.CONFIRMATION);
@@ -301,63 +412,57 @@ public class CalculateTotalController {
         confirmReceipt.setHeaderText("Transaction Complete");
 
         StringBuilder contentText = new StringBuilder();
-        contentText.append(String.format("Subtotal: Rp %,d\n", (long)currentOrder.getSubtotal()));
+        contentText.append(String.format("Subtotal: %s\n", currentOrder.getSubtotal().format()));
 
-        if (currentOrder.getDiscount() > 0) {
+        if (currentOrder.getDiscount().isPositive()) {
             contentText.append(String.format("%s\n", currentOrder.getDiscountDescription()));
-            contentText.append(String.format("Discount: -Rp %,d\n", (long)currentOrder.getDiscount()));
+            contentText.append(String.format("Discount: -%s\n", currentOrder.getDiscount().format()));
         }
 
-        contentText.append(String.format("Final Total: Rp %,d\n", (long)finalTotal));
-        contentText.append(String.format("%s: Rp %,d\n", isEPayment ? "E-payment" : "Cash", (long)cashGiven));
-        contentText.append(String.format("Change: Rp %,d\n\n", (long)change));
+        contentText.append(String.format("Final Total: %s\n", finalTotal.format()));
+        contentText.append(String.format("%s: %s\n", isEPayment ? "E-payment" : "Cash", cashGiven.format()));
+        contentText.append(String.format("Change: %s\n\n", change.format()));
         contentText.append("Would you like to view the receipt?");
 
         confirmReceipt.setContentText(contentText.toString());
 
         confirmReceipt.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    Database.saveOrder(currentOrder);
-                    loadReceiptView(cashGiven, change, isEPayment);
-                } catch (SQLException e) {
-                    showAlert("Error", "Failed to save order: " + e.getMessage());
-                    loadReceiptView(cashGiven, change, isEPayment);
-                }
+                // Journal the sale in the background; it is written to SQLite after the receipt is shown.
+                // The worker only sees a snapshot, and no items can be added until the receipt is up.
+                OrderSnapshot sale = currentOrder.snapshot();
+                Payment payment = new Payment(isEPayment, cashGiven, change);
+                itemEntryPane.setDisable(true);
+                checkoutButton.setDisable(true);
+                backButton.setDisable(true);
+                DatabaseTasks.run(
+                        () -> Database.checkout(sale, payment),
+                        this::loadReceiptView,
+                        e -> {
+                            showAlert("Error", "Failed to save order: " + e.getMessage());
+                            backButton.setDisable(false);
+                            // Still show and print the receipt; without an order id it is not kept for reprints
+                            loadReceiptView(new Receipt(0, LocalDateTime.now().withNano(0), sale, payment));
+                        });
             }
         });
     }
 
-    private void loadReceiptView(double cashGiven, double change, boolean isEPayment) {
+    private void loadReceiptView(Receipt receipt) {
         try {
-            FXMLLoader loader = new FXMLLoader(getClass().getResource("/javafx/Receipt.fxml"));
-            Parent root = loader.load();
-            ReceiptController receiptController = loader.getController();
-            receiptController.setOrder(currentOrder);
-            receiptController.setCashDetails(cashGiven, change, isEPayment);
-
-            Stage stage = (Stage) backButton.getScene().getWindow();
-            Scene scene = new Scene(root, DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT);
-            stage.setScene(scene);
-            stage.setTitle("Receipt");
-            stage.show();
+            ReceiptController receiptController = SceneUtil.show("Receipt.fxml", "Receipt");
+            receiptController.setReceipt(receipt);
         } catch (Exception e) {
             e.printStackTrace();
             showAlert("Error", "Error loading receipt: " + e.getMessage());
+            refresh();  // The sale is journaled; start the next order here instead
         }
     }
 
     @FXML
     public void handleBack() {
         try {
-            Stage stage = (Stage) backButton.getScene().getWindow();
-            Parent root = FXMLLoader.load(getClass().getResource("/javafx/HomePage.fxml"));
-            Scene scene = new Scene(root, DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT);
-            scene.getStylesheets().add(getClass().getResource("/css/HomePage.css").toExternalForm());
-
-            stage.setScene(scene);
-            stage.setTitle("POS");
-            stage.show();
+            SceneUtil.show("HomePage.fxml", "POS");
         } catch (Exception e) {
             e.printStackTrace();
             showAlert("Error", "Error loading POS screen: " + e.getMessage());
@@ -365,7 +470,7 @@ public class CalculateTotalController {
     }
 
     private void updateCheckoutButton() {
-        checkoutButton.setDisable(currentOrder.getItems().isEmpty());
+        checkoutButton.setDisable(currentOrder.isEmpty());
     }
 
     private void showAlert(String title, String message) {
@@ -402,10 +507,8 @@ public class CalculateTotalController {
             removeButton.setOnAction(event -> {
                 CartItem selectedItem = cartTable.getSelectionModel().getSelectedItem();
                 if (selectedItem != null) {
-                    currentOrder.getItems().remove(selectedItem.getProduct());
+                    currentOrder.removeItem(selectedItem.getProduct());  // Totals and labels follow
                     observableItems.remove(selectedItem);  // This will update the display immediately
-                    updateTotalDisplay();
-                    updateCheckoutButton();
                 }
             });
 
@@ -431,10 +534,9 @@ public class CalculateTotalController {
         quantityColumn.setCellValueFactory(data ->
                 new SimpleIntegerProperty(data.getValue().getQuantity()).asObject());
         priceColumn.setCellValueFactory(data ->
-                new SimpleStringProperty(String.format("Rp %,d",
-                        (long)data.getValue().getProduct().getPrice())));
+                new SimpleStringProperty(data.getValue().getProduct().getPrice().format()));
         totalColumn.setCellValueFactory(data ->
-                new SimpleStringProperty(String.format("Rp %,d",
-                        (long)(data.getValue().getProduct().getPrice() * data.getValue().getQuantity()))));
+                new SimpleStringProperty(
+                        data.getValue().getProduct().getPrice().times(data.getValue().getQuantity()).format()));
     }
 }
\ No newline at end of file
@@ -2,22 +2,19 @@ package javafx.controller;
 
 import database.Database;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.stage.Stage;
+import javafx.model.Money;
 import javafx.model.Product;
 import javafx.model.ProductType;
+import javafx.utils.DatabaseTasks;
+import javafx.utils.ProductSearchBox;
+import javafx.utils.Refreshable;
+import javafx.utils.SceneUtil;
 import javafx.util.StringConverter;
 
-import java.sql.SQLException;
-import java.util.List;
-
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_HEIGHT;
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_WIDTH;
-
-public class EditProductController {
+public class EditProductController implements Refreshable {
+    @FXML
+    private TextField searchField;
     @FXML
     private ComboBox<Product> productComboBox;
     @FXML
@@ -27,15 +24,19 @@ public class EditProductController {
     @FXML
     private TextField priceField;
     @FXML
+    private TextField codeField;
+    @FXML
     private Label statusLabel;
     @FXML
     private Button backButton;
 
     private Product selectedProduct;
+    private ProductSearchBox searchBox;
 
     @FXML
     public void initialize() {
         setupComboBoxes();
+        searchBox = new ProductSearchBox(searchField, productComboBox, Database::getAllProducts);
         loadProducts();
         setupProductSelectionListener();
     }
@@ -63,10 +64,10 @@ public class EditProductController {
                 if (empty || product == null) {
                     setText(null);
                 } else {
-                    setText(String.format("%s - %s (Rp %,d)",
+                    setText(String.format("%s - %s (%s)",
                             product.getType().getDisplayName(),
                             product.getVariant(),
-                            (long)product.getPrice()));
+                            product.getPrice().format()));
                 }
             }
         });
@@ -78,19 +79,25 @@ public class EditProductController {
                 if (empty || product == null) {
                     setText(null);
                 } else {
-                    setText(String.format("%s - %s (Rp %,d)",
+                    setText(String.format("%s - %s (%s)",
                             product.getType().getDisplayName(),
                             product.getVariant(),
-                            (long)product.getPrice()));
+                            product.getPrice().format()));
                 }
             }
         });
     }
 
+    // Shown again from the home page: list the catalog as it is now and start with an empty form
+    @Override
+    public void refresh() {
+        clearFields();
+        loadProducts();
+        statusLabel.setText("");
+    }
+
     private void loadProducts() {
-        List<Product> products = Database.getAllProducts();
-        productComboBox.getItems().clear();
-        productComboBox.getItems().addAll(products);
+        searchBox.refresh();
     }
 
     private void setupProductSelectionListener() {
@@ -99,7 +106,8 @@ public class EditProductController {
                 selectedProduct = newVal;
                 typeComboBox.setValue(newVal.getType());
                 variantField.setText(newVal.getVariant());
-                priceField.setText(String.format("%.0f", newVal.getPrice()));
+                priceField.setText(Long.toString(newVal.getPrice().rupiah()));
+                codeField.setText(newVal.getCode() != null ? newVal.getCode() : "");
             }
         });
     }
@@ -129,44 +137,56 @@ public class EditProductController {
             return;
         }
 
+        Money newPrice;
         try {
-            double newPrice = Double.parseDouble(priceText);
-
-            // Remove old product
-            Database.removeProduct(selectedProduct);
-
-            // Add updated product
-            Product updatedProduct = new Product(newType, newVariant, newPrice);
-            Database.addProduct(updatedProduct);
-
-            statusLabel.setText("Product updated successfully!");
-            loadProducts(); // Refresh the product list
-            clearFields();
+            newPrice = Money.parse(priceText);
         } catch (NumberFormatException e) {
-            showAlert("Error", "Price must be a number.");
-        } catch (SQLException e) {
-            showAlert("Error", "Error updating product: " + e.getMessage());
+            showAlert("Error", "Price must be a whole number of rupiah.");
+            return;
+        }
+
+        // Update in place, so the product keeps its id and its sales history and codes still refer to it
+        Product updatedProduct = new Product(selectedProduct.getId(), newType, newVariant, newPrice,
+                codeField.getText());
+        Product codeOwner = Database.getCatalog().getByCode(updatedProduct.getCode());
+        if (codeOwner != null && codeOwner.getId() != updatedProduct.getId()) {
+            showAlert("Error", "Code " + updatedProduct.getCode() + " is already used by "
+                    + codeOwner.getVariant() + ".");
+            return;
         }
+        statusLabel.setText("Saving...");
+        DatabaseTasks.run(
+                () -> Database.updateProduct(updatedProduct),
+                found -> {
+                    if (!found) {
+                        statusLabel.setText("");
+                        showAlert("Error", "Product could not be found.");
+                        return;
+                    }
+                    statusLabel.setText("Product updated successfully!");
+                    loadProducts(); // Refresh the product list
+                    clearFields();
+                },
+                e -> {
+                    statusLabel.setText("");
+                    showAlert("Error", "Error updating product: " + e.getMessage());
+                });
     }
 
     private void clearFields() {
         productComboBox.setValue(null);
+        searchField.clear();
         typeComboBox.setValue(null);
         variantField.clear();
         priceField.clear();
+        codeField.clear();
         selectedProduct = null;
     }
 
     @FXML
     public void handleBack() {
         try {
-            Stage stage = (Stage) backButton.getScene().getWindow();
-            Parent root = FXMLLoader.load(getClass().getResource("/javafx/HomePage.fxml"));
-            Scene scene = new Scene(root, DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT);
-            scene.getStylesheets().add(getClass().getResource("/css/HomePage.css").toExternalForm());
-            stage.setScene(scene);
-            stage.setTitle("POS");
-            stage.show();
+            SceneUtil.show("HomePage.fxml", "POS");
         } catch (Exception e) {
             showAlert("Error", "Error loading POS screen: " + e.getMessage());
         }
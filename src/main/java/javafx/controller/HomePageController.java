@@ -2,13 +2,7 @@ package javafx.controller;
 
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.stage.Stage;
-import javafx.scene.Scene;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_HEIGHT;
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_WIDTH;
+import javafx.utils.SceneUtil;
 
 public class HomePageController {
 
@@ -21,36 +15,32 @@ public class HomePageController {
 
     @FXML
     public void handleNavigateToCalculateTotal() {
-        loadScene("/javafx/CalculateTotal.fxml", "Calculate Total");
+        loadScene("CalculateTotal.fxml", "Calculate Total");
     }
 
     @FXML
     public void handleNavigateToAddProduct() {
-        loadScene("/javafx/AddProduct.fxml", "Add Product");
+        loadScene("AddProduct.fxml", "Add Product");
     }
 
     @FXML
     public void handleNavigateToRemoveProduct() {
-        loadScene("/javafx/RemoveProduct.fxml", "Remove Product");
+        loadScene("RemoveProduct.fxml", "Remove Product");
     }
 
     @FXML
     public void handleNavigateToOrderHistory() {
-        loadScene("/javafx/OrderHistory.fxml", "Order History");
+        loadScene("OrderHistory.fxml", "Order History");
     }
 
     @FXML
     public void handleNavigateToEditProduct() {
-        loadScene("/javafx/EditProduct.fxml", "Edit Product");
+        loadScene("EditProduct.fxml", "Edit Product");
     }
 
-    private void loadScene(String fxmlPath, String title) {
+    private void loadScene(String fxmlFileName, String title) {
         try {
-            Stage stage = (Stage) calculateTotalButton.getScene().getWindow(); // Use calculateTotalButton or addProductButton
-            Parent root = FXMLLoader.load(getClass().getResource(fxmlPath));
-            stage.setScene(new Scene(root, DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT));
-            stage.setTitle(title);
-            stage.show();
+            SceneUtil.show(fxmlFileName, title);
         } catch (Exception e) {
             e.printStackTrace();
             System.out.println("Failed to load " + title + ": " + e.getMessage());
@@ -1,57 +1,100 @@
 package javafx.controller;
 
+import javafx.collections.ObservableList;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
-import javafx.stage.Stage;
-import javafx.scene.Scene;
 import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
 import database.Database;
 import javafx.collections.FXCollections;
 import javafx.beans.property.SimpleStringProperty;
 
-import java.sql.SQLException;
-import java.sql.Timestamp;
+import javafx.model.DateRange;
+import javafx.model.OrderLine;
+import javafx.model.OrderSummary;
+import javafx.model.ProductSalesStat;
+import javafx.model.ReceiptLine;
+import javafx.model.SalesTotals;
+import javafx.utils.DatabaseTasks;
+import javafx.utils.PrintSpooler;
+import javafx.utils.Refreshable;
+import javafx.utils.SceneUtil;
+import javafx.utils.ThermalPrinter;
+
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_HEIGHT;
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_WIDTH;
+public class OrderHistoryController implements Refreshable {
 
-public class OrderHistoryController {
-
-    @FXML private TableView<Map<String, Object>> orderTable;
-    @FXML private TableColumn<Map<String, Object>, String> orderIdColumn;
-    @FXML private TableColumn<Map<String, Object>, String> dateColumn;
-    @FXML private TableColumn<Map<String, Object>, String> totalColumn;
+    @FXML private TableView<OrderSummary> orderTable;
+    @FXML private TableColumn<OrderSummary, String> orderIdColumn;
+    @FXML private TableColumn<OrderSummary, String> dateColumn;
+    @FXML private TableColumn<OrderSummary, String> totalColumn;
 
     @FXML private VBox orderDetailsPane;
-    @FXML private TableView<Map<String, Object>> orderItemsTable;
-    @FXML private TableColumn<Map<String, Object>, String> productColumn;
-    @FXML private TableColumn<Map<String, Object>, String> quantityColumn;
-    @FXML private TableColumn<Map<String, Object>, String> priceColumn;
+    @FXML private TableView<OrderLine> orderItemsTable;
+    @FXML private TableColumn<OrderLine, String> productColumn;
+    @FXML private TableColumn<OrderLine, String> quantityColumn;
+    @FXML private TableColumn<OrderLine, String> priceColumn;
 
     @FXML private Button backButton;
     @FXML private Button deleteButton;
+    @FXML private Button reprintButton;
+    @FXML private Button exportPdfButton;
+    @FXML private Button loadMoreButton;
+    @FXML private ProgressIndicator loadingIndicator;
 
     @FXML
     private Label totalLabel;
 
     @FXML
     private DatePicker datePicker;
-    private List<Map<String, Object>> allOrders = new ArrayList<>();
+    @FXML
+    private DatePicker endDatePicker;
+    @FXML
+    private ComboBox<String> rangeComboBox;
+
+    // Orders that continue after this one (older in the history); date null for the newest order
+    private record Cursor(LocalDateTime date, long id) {
+    }
+
+    // Orders dropped from the top of the window: count orders following start
+    private record DroppedOrders(Cursor start, int count) {
+    }
+
+    private static final Cursor NEWEST = new Cursor(null, 0);
+
+    // A window of at most MAX_LOADED_ORDERS orders, newest first. Scrolling down appends a page and
+    // drops orders from the top; scrolling back up loads them again from the cursor they followed.
+    private final ObservableList<OrderSummary> allOrders = FXCollections.observableArrayList();
+    private final Deque<DroppedOrders> droppedAbove = new ArrayDeque<>();
+    private Cursor windowStart = NEWEST;
+    private boolean hasMoreOrders = true;
+    private DateRange activeRange; // null when showing all orders
+
+    // Queries in flight; a newer query of the same kind cancels the older one
+    private Task<List<OrderSummary>> pageLoad;
+    private Task<SalesTotals> totalLoad;
 
+    private static final int PAGE_SIZE = 50;
+    private static final int MAX_LOADED_ORDERS = PAGE_SIZE * 4;
     private static final DateTimeFormatter DATE_FORMATTER =
             DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     @FXML
     public void initialize() {
         setupColumns();
+        setupRangeComboBox();
+        setupScrollPaging();
+        loadingIndicator.visibleProperty().bind(DatabaseTasks.busyProperty());
         loadOrderHistory();
 
         orderTable.getSelectionModel().selectedItemProperty().addListener(
@@ -62,28 +105,64 @@ public class OrderHistoryController {
                 });
     }
 
+    // Shown again from the home page: pick up orders taken since, keeping the filter
+    @Override
+    public void refresh() {
+        orderDetailsPane.setVisible(false);
+        loadOrderHistory();
+        if (!totalLabel.getText().isEmpty()) {
+            handleShowTotal();
+        }
+    }
+
     private void setupColumns() {
         orderIdColumn.setCellValueFactory(data ->
-                new SimpleStringProperty(data.getValue().get("orderId").toString()));
+                new SimpleStringProperty(Long.toString(data.getValue().id())));
 
-        dateColumn.setCellValueFactory(data -> {
-            Timestamp ts = (Timestamp) data.getValue().get("date");
-            return new SimpleStringProperty(ts.toLocalDateTime().format(DATE_FORMATTER));
-        });
+        dateColumn.setCellValueFactory(data ->
+                new SimpleStringProperty(data.getValue().localOrderDate().format(DATE_FORMATTER)));
 
         totalColumn.setCellValueFactory(data ->
-                new SimpleStringProperty(String.format("Rp %,d",
-                        (long)((Double)data.getValue().get("total")).doubleValue())));
+                new SimpleStringProperty(data.getValue().total().format()));
 
         productColumn.setCellValueFactory(data ->
-                new SimpleStringProperty((String)data.getValue().get("productName")));
+                new SimpleStringProperty(data.getValue().getProductName()));
 
         quantityColumn.setCellValueFactory(data ->
-                new SimpleStringProperty(data.getValue().get("quantity").toString()));
+                new SimpleStringProperty(Integer.toString(data.getValue().quantity())));
 
         priceColumn.setCellValueFactory(data ->
-                new SimpleStringProperty(String.format("Rp %,d",
-                        (long)((Double)data.getValue().get("pricePerUnit")).doubleValue())));
+                new SimpleStringProperty(data.getValue().pricePerUnit().format()));
+    }
+
+    private void setupRangeComboBox() {
+        rangeComboBox.getItems().addAll("Day", "Week", "Month", "Custom");
+        rangeComboBox.setValue("Day");
+
+        // The end date is only used for custom ranges
+        rangeComboBox.valueProperty().addListener((obs, oldVal, newVal) -> {
+            boolean custom = "Custom".equals(newVal);
+            endDatePicker.setVisible(custom);
+            endDatePicker.setManaged(custom);
+        });
+    }
+
+    // Loads the next page as soon as the table is scrolled to the bottom, and orders dropped from
+    // the window as soon as it is scrolled back to the top
+    private void setupScrollPaging() {
+        orderTable.skinProperty().addListener((obs, oldSkin, newSkin) -> {
+            for (Node node : orderTable.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                    bar.valueProperty().addListener((o, oldValue, newValue) -> {
+                        if (newValue.doubleValue() >= bar.getMax()) {
+                            handleLoadMore();
+                        } else if (newValue.doubleValue() <= bar.getMin()) {
+                            loadPreviousOrders();
+                        }
+                    });
+                }
+            }
+        });
     }
 
     @FXML
@@ -93,49 +172,138 @@ public class OrderHistoryController {
             return;
         }
 
-        List<Map<String, Object>> filteredOrders = allOrders.stream()
-                .filter(order -> {
-                    Timestamp orderDate = (Timestamp) order.get("date");
-                    return orderDate.toLocalDateTime().toLocalDate().equals(datePicker.getValue());
-                })
-                .collect(Collectors.toList());
+        LocalDate selectedDate = datePicker.getValue();
+        switch (rangeComboBox.getValue()) {
+            case "Week" -> activeRange = DateRange.week(selectedDate);
+            case "Month" -> activeRange = DateRange.month(selectedDate);
+            case "Custom" -> {
+                LocalDate endDate = endDatePicker.getValue();
+                if (endDate == null || endDate.isBefore(selectedDate)) {
+                    showAlert("Error", "Please select an end date on or after the start date");
+                    return;
+                }
+                activeRange = DateRange.custom(selectedDate, endDate);
+            }
+            default -> activeRange = DateRange.day(selectedDate);
+        }
 
-        orderTable.setItems(FXCollections.observableArrayList(filteredOrders));
+        // The range is filtered by the database, only matching orders are loaded
+        loadOrderHistory();
         handleShowTotal(); // Update total for filtered orders
     }
 
     @FXML
     private void handleClearFilter() {
         datePicker.setValue(null);
-        orderTable.setItems(FXCollections.observableArrayList(allOrders));
+        endDatePicker.setValue(null);
+        activeRange = null;
+        loadOrderHistory();
         handleShowTotal(); // Update total for all orders
     }
 
+    @FXML
+    private void handleLoadMore() {
+        // Wait for the page being loaded; its cursor is needed for the next one
+        if (hasMoreOrders && (pageLoad == null || pageLoad.isDone())) {
+            loadNextPage();
+        }
+    }
+
     private void loadOrderHistory() {
-        try {
-            allOrders = Database.getOrderHistory(); 
-            orderTable.setItems(FXCollections.observableArrayList(allOrders));
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load order history: " + e.getMessage());
+        DatabaseTasks.cancel(pageLoad);
+        allOrders.clear();
+        droppedAbove.clear();
+        windowStart = NEWEST;
+        hasMoreOrders = true;
+        orderTable.setItems(allOrders);
+        loadNextPage();
+    }
+
+    // Appends the page following the last loaded order, in the background
+    private void loadNextPage() {
+        LocalDateTime beforeDate = null;
+        long beforeId = 0;
+        if (!allOrders.isEmpty()) {
+            OrderSummary last = allOrders.get(allOrders.size() - 1);
+            beforeDate = last.orderDate();
+            beforeId = last.id();
         }
+
+        DateRange range = activeRange;
+        LocalDateTime cursorDate = beforeDate;
+        long cursorId = beforeId;
+        loadMoreButton.setDisable(true);
+        pageLoad = DatabaseTasks.run(
+                () -> Database.getOrderHistoryPage(range, cursorDate, cursorId, PAGE_SIZE),
+                page -> {
+                    int lastShown = allOrders.size() - 1;
+                    allOrders.addAll(page);
+                    hasMoreOrders = page.size() == PAGE_SIZE;
+                    loadMoreButton.setDisable(!hasMoreOrders);
+                    int dropped = dropOrdersAbove();
+                    if (dropped > 0) {
+                        orderTable.scrollTo(Math.max(lastShown - dropped, 0));
+                    }
+                },
+                e -> {
+                    loadMoreButton.setDisable(!hasMoreOrders);
+                    showAlert("Error", "Failed to load order history: " + e.getMessage());
+                });
+    }
+
+    // Keeps the window to MAX_LOADED_ORDERS by dropping the oldest-loaded orders at the top, remembering
+    // where they started so they can be loaded again; returns how many were dropped
+    private int dropOrdersAbove() {
+        int excess = allOrders.size() - MAX_LOADED_ORDERS;
+        if (excess <= 0) {
+            return 0;
+        }
+        droppedAbove.push(new DroppedOrders(windowStart, excess));
+        OrderSummary lastDropped = allOrders.get(excess - 1);
+        windowStart = new Cursor(lastDropped.orderDate(), lastDropped.id());
+        allOrders.remove(0, excess);
+        return excess;
     }
 
-    private void showOrderDetails(Map<String, Object> order) {
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> items = (List<Map<String, Object>>) order.get("items");
-        orderItemsTable.setItems(FXCollections.observableArrayList(items));
+    // Loads the orders most recently dropped from the top back in, dropping as many from the bottom
+    private void loadPreviousOrders() {
+        if (droppedAbove.isEmpty() || (pageLoad != null && !pageLoad.isDone())) {
+            return;
+        }
+
+        DroppedOrders dropped = droppedAbove.pop();
+        DateRange range = activeRange;
+        pageLoad = DatabaseTasks.run(
+                () -> Database.getOrderHistoryPage(range, dropped.start().date(), dropped.start().id(),
+                        dropped.count()),
+                page -> {
+                    allOrders.addAll(0, page);
+                    windowStart = dropped.start();
+                    int excess = allOrders.size() - MAX_LOADED_ORDERS;
+                    if (excess > 0) {
+                        allOrders.remove(allOrders.size() - excess, allOrders.size());
+                        hasMoreOrders = true;
+                        loadMoreButton.setDisable(false);
+                    }
+                    orderTable.scrollTo(page.size());
+                },
+                e -> {
+                    droppedAbove.push(dropped);
+                    showAlert("Error", "Failed to load order history: " + e.getMessage());
+                });
+    }
+
+    private void showOrderDetails(OrderSummary order) {
+        orderItemsTable.setItems(FXCollections.observableArrayList(order.lines()));
         orderDetailsPane.setVisible(true);
     }
 
     @FXML
     public void handleBack() {
+        DatabaseTasks.cancel(pageLoad);
+        DatabaseTasks.cancel(totalLoad);
         try {
-            Stage stage = (Stage) backButton.getScene().getWindow();
-            Parent root = FXMLLoader.load(getClass().getResource("/javafx/HomePage.fxml"));
-            Scene scene = new Scene(root, DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT);
-            scene.getStylesheets().add(getClass().getResource("/css/HomePage.css").toExternalForm());
-            stage.setScene(scene);
-            stage.show();
+            SceneUtil.show("HomePage.fxml", "POS");
         } catch (Exception e) {
             showAlert("Error", "Error returning to home page: " + e.getMessage());
         }
@@ -143,7 +311,7 @@ public class OrderHistoryController {
 
     @FXML
     private void handleDeleteOrder() {
-        Map<String, Object> selectedOrder = orderTable.getSelectionModel().getSelectedItem();
+        OrderSummary selectedOrder = orderTable.getSelectionModel().getSelectedItem();
         if (selectedOrder == null) {
             showAlert("Error", "Please select an order to delete");
             return;
@@ -151,35 +319,114 @@ public class OrderHistoryController {
 
         Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
         confirmation.setTitle("Delete Order");
-        confirmation.setHeaderText("Delete Order #" + selectedOrder.get("orderId"));
+        confirmation.setHeaderText("Delete Order #" + selectedOrder.id());
         confirmation.setContentText("Are you sure you want to delete this order? This action cannot be undone.");
 
         confirmation.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                try {
-                    Database.deleteOrder((Long) selectedOrder.get("orderId"));
-                    loadOrderHistory();
-                    orderDetailsPane.setVisible(false);
-                } catch (SQLException e) {
-                    showAlert("Error", "Failed to delete order: " + e.getMessage());
-                }
+                deleteButton.setDisable(true);
+                DatabaseTasks.run(
+                        () -> {
+                            Database.deleteOrder(selectedOrder.id());
+                            return null;
+                        },
+                        done -> {
+                            deleteButton.setDisable(false);
+                            loadOrderHistory();
+                            orderDetailsPane.setVisible(false);
+                        },
+                        e -> {
+                            deleteButton.setDisable(false);
+                            showAlert("Error", "Failed to delete order: " + e.getMessage());
+                        });
             }
         });
     }
 
     @FXML
-    private void handleShowTotal() {
-        // Calculate total from visible orders in the table
-        double total = 0.0;
-        for (Map<String, Object> order : orderTable.getItems()) {
-            total += (double) order.get("total");
+    private void handleReprint() {
+        OrderSummary selectedOrder = orderTable.getSelectionModel().getSelectedItem();
+        if (selectedOrder == null) {
+            showAlert("Error", "Please select an order to reprint");
+            return;
         }
 
-        totalLabel.setText(String.format("Total Sales: Rp %,d", (long)total));
+        // Rebuilt from the stored order, so it shows the original time and payment
+        reprintButton.setDisable(true);
+        DatabaseTasks.run(
+                () -> Database.getReceipt(selectedOrder.id()),
+                receipt -> {
+                    reprintButton.setDisable(false);
+                    boolean queued = PrintSpooler.reprint(receipt, (printedReceipt, status, message) -> {
+                        if (status == PrintSpooler.Status.FAILED) {
+                            showAlert("Error", "Error printing receipt: " + message);
+                        }
+                    });
+                    if (!queued) {
+                        showAlert("Error", "Too many receipts are waiting to be printed, please try again shortly.");
+                    }
+                },
+                e -> {
+                    reprintButton.setDisable(false);
+                    showAlert("Error", "Failed to load receipt: " + e.getMessage());
+                });
+    }
+
+    @FXML
+    private void handleExportPdf() {
+        OrderSummary selectedOrder = orderTable.getSelectionModel().getSelectedItem();
+        if (selectedOrder == null) {
+            showAlert("Error", "Please select an order to export");
+            return;
+        }
+
+        // The receipt exactly as it was printed, read back from the receipt archive
+        long orderId = selectedOrder.id();
+        Path output = Path.of(Database.getAppDirectory(), "receipt-" + orderId + ".pdf");
+        exportPdfButton.setDisable(true);
+        DatabaseTasks.run(
+                () -> {
+                    List<ReceiptLine> lines = Database.getReceiptArchive().read(orderId);
+                    if (lines != null) {
+                        ThermalPrinter.exportPdf(lines, output);
+                    }
+                    return lines != null;
+                },
+                exported -> {
+                    exportPdfButton.setDisable(false);
+                    if (exported) {
+                        showAlert(Alert.AlertType.INFORMATION, "Export PDF", "Receipt saved to " + output);
+                    } else {
+                        showAlert("Error", "No printed receipt was archived for order #" + orderId);
+                    }
+                },
+                e -> {
+                    exportPdfButton.setDisable(false);
+                    showAlert("Error", "Failed to export receipt: " + e.getMessage());
+                });
+    }
+
+    @FXML
+    private void handleShowTotal() {
+        // Read the total for the current filter from the daily sales rollup
+        DateRange range = activeRange;
+        DatabaseTasks.cancel(totalLoad);
+        totalLoad = DatabaseTasks.run(
+                () -> Database.getSalesTotals(range),
+                totals -> totalLabel.setText("Total Sales: " + totals.net().format()),
+                e -> showAlert("Error", "Failed to load total sales: " + e.getMessage()));
     }
 
     @FXML
     private void handleViewProductStats() {
+        // Query first, then show the dialog with the results
+        DatabaseTasks.run(
+                Database::getProductSalesStats,
+                this::showProductStats,
+                e -> showAlert("Error", "Failed to load product statistics: " + e.getMessage()));
+    }
+
+    private void showProductStats(List<ProductSalesStat> stats) {
         try {
             Dialog<ButtonType> dialog = new Dialog<>();
             dialog.setTitle("Product Sales Statistics");
@@ -188,10 +435,9 @@ public class OrderHistoryController {
             DialogPane dialogPane = loader.load();
             dialog.setDialogPane(dialogPane);
 
-            TableView<Map<String, Object>> statsTable = (TableView<Map<String, Object>>) dialogPane.lookup("#statsTable");
+            TableView<ProductSalesStat> statsTable = (TableView<ProductSalesStat>) dialogPane.lookup("#statsTable");
             setupStatsColumns(statsTable);
 
-            List<Map<String, Object>> stats = Database.getProductSalesStats();
             statsTable.setItems(FXCollections.observableArrayList(stats));
 
             dialog.showAndWait();
@@ -200,21 +446,25 @@ public class OrderHistoryController {
         }
     }
 
-    private void setupStatsColumns(TableView<Map<String, Object>> table) {
-        TableColumn<Map<String, Object>, String> typeColumn = (TableColumn<Map<String, Object>, String>) table.getColumns().get(0);
-        TableColumn<Map<String, Object>, String> variantColumn = (TableColumn<Map<String, Object>, String>) table.getColumns().get(1);
-        TableColumn<Map<String, Object>, String> quantityColumn = (TableColumn<Map<String, Object>, String>) table.getColumns().get(2);
-        TableColumn<Map<String, Object>, String> totalColumn = (TableColumn<Map<String, Object>, String>) table.getColumns().get(3);
+    private void setupStatsColumns(TableView<ProductSalesStat> table) {
+        TableColumn<ProductSalesStat, String> typeColumn = (TableColumn<ProductSalesStat, String>) table.getColumns().get(0);
+        TableColumn<ProductSalesStat, String> variantColumn = (TableColumn<ProductSalesStat, String>) table.getColumns().get(1);
+        TableColumn<ProductSalesStat, String> quantityColumn = (TableColumn<ProductSalesStat, String>) table.getColumns().get(2);
+        TableColumn<ProductSalesStat, String> totalColumn = (TableColumn<ProductSalesStat, String>) table.getColumns().get(3);
 
-        typeColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().get("type").toString()));
-        variantColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().get("variant").toString()));
-        quantityColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().get("quantity").toString()));
+        typeColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().type().getDisplayName()));
+        variantColumn.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().variant()));
+        quantityColumn.setCellValueFactory(data -> new SimpleStringProperty(Integer.toString(data.getValue().quantity())));
         totalColumn.setCellValueFactory(data ->
-                new SimpleStringProperty(String.format("Rp %,d", (long)((Double)data.getValue().get("total")).doubleValue())));
+                new SimpleStringProperty(data.getValue().totalSales().format()));
     }
 
     private void showAlert(String title, String message) {
-        Alert alert = new Alert(Alert.AlertType.ERROR);
+        showAlert(Alert.AlertType.ERROR, title, message);
+    }
+
+    private void showAlert(Alert.AlertType type, String title, String message) {
+        Alert alert = new Alert(type);
         alert.setTitle(title);
         alert.setHeaderText(null);
         alert.setContentText(message);
@@ -6,23 +6,23 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
-import javafx.stage.Stage;
-import javafx.scene.Scene;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
+import javafx.scene.control.TextField;
 import javafx.model.Product;
+import javafx.utils.DatabaseTasks;
+import javafx.utils.ProductSearchBox;
+import javafx.utils.Refreshable;
+import javafx.utils.SceneUtil;
 
-import java.sql.SQLException;
-import java.util.List;
+public class RemoveProductController implements Refreshable {
 
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_HEIGHT;
-import static javafx.utils.SceneUtil.DEFAULT_WINDOW_WIDTH;
-
-public class RemoveProductController {
+    @FXML
+    private TextField searchField; // Narrows the dropdown as you type
 
     @FXML
     private ComboBox<Product> productComboBox; // Dropdown for product selection
 
+    private ProductSearchBox searchBox;
+
     @FXML
     private Label statusLabel;
 
@@ -31,13 +31,21 @@ public class RemoveProductController {
 
     @FXML
     public void initialize() {
+        searchBox = new ProductSearchBox(searchField, productComboBox, Database::getAllProducts);
         loadProducts(); // Load products into ComboBox on initialization
     }
 
+    // Shown again from the home page: list the catalog as it is now
+    @Override
+    public void refresh() {
+        searchField.clear();
+        productComboBox.setValue(null);
+        loadProducts();
+        statusLabel.setText("");
+    }
+
     private void loadProducts() {
-        List<Product> products = Database.getAllProducts();
-        productComboBox.getItems().clear();
-        productComboBox.getItems().addAll(products);
+        searchBox.refresh();
     }
 
     @FXML
@@ -50,32 +58,25 @@ public class RemoveProductController {
             return;
         }
 
-        try {
-            // Remove product using the product details, not an ID
-            boolean isRemoved = Database.removeProduct(selectedProduct);
-            if (isRemoved) {
-                statusLabel.setText("Product removed successfully!");
-                productComboBox.getItems().remove(selectedProduct); // Update ComboBox
-            } else {
-                statusLabel.setText("Error: Product could not be found.");
-            }
-        } catch (SQLException e) {
-            statusLabel.setText("Error removing product: " + e.getMessage());
-        }
+        // Remove product by its database id
+        statusLabel.setText("Removing...");
+        DatabaseTasks.run(
+                () -> Database.removeProduct(selectedProduct),
+                isRemoved -> {
+                    if (isRemoved) {
+                        statusLabel.setText("Product removed successfully!");
+                        productComboBox.getItems().remove(selectedProduct); // Update ComboBox
+                    } else {
+                        statusLabel.setText("Error: Product could not be found.");
+                    }
+                },
+                e -> statusLabel.setText("Error removing product: " + e.getMessage()));
     }
 
     @FXML
     public void handleBack() {
         try {
-            // Load the main POS screen
-            Stage stage = (Stage) backButton.getScene().getWindow();
-            Parent root = FXMLLoader.load(getClass().getResource("/javafx/HomePage.fxml"));
-            Scene scene = new Scene(root, DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT);
-            scene.getStylesheets().add(getClass().getResource("/css/HomePage.css").toExternalForm());
-
-            stage.setScene(scene);
-            stage.setTitle("POS");
-            stage.show();
+            SceneUtil.show("HomePage.fxml", "POS");
         } catch (Exception e) {
             e.printStackTrace();
             showAlert("Error", "Error loading POS screen: " + e.getMessage());
@@ -0,0 +1,35 @@
+package javafx.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+// A range of whole days, from start (inclusive) to end (exclusive)
+public record DateRange(LocalDate start, LocalDate end) {
+
+    public DateRange {
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+    }
+
+    public static DateRange day(LocalDate date) {
+        return new DateRange(date, date.plusDays(1));
+    }
+
+    // Monday to Sunday of the week containing the date
+    public static DateRange week(LocalDate date) {
+        LocalDate monday = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return new DateRange(monday, monday.plusWeeks(1));
+    }
+
+    public static DateRange month(LocalDate date) {
+        LocalDate first = date.withDayOfMonth(1);
+        return new DateRange(first, first.plusMonths(1));
+    }
+
+    // Both dates inclusive, as picked by the user
+    public static DateRange custom(LocalDate from, LocalDate to) {
+        return new DateRange(from, to.plusDays(1));
+    }
+}
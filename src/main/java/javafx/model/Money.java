@@ -0,0 +1,66 @@
+package javafx.model;
+
+import java.math.BigDecimal;
+
+// An amount of money in whole rupiah. Arithmetic is exact; percentages round half up to the rupiah.
+public record Money(long rupiah) implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    public static Money of(long rupiah) {
+        return rupiah == 0 ? ZERO : new Money(rupiah);
+    }
+
+    // Parses an amount as typed, e.g. "25000", "25,000" or "25000.00"; fractions of a rupiah are rejected
+    public static Money parse(String text) {
+        String clean = text.trim().replace(",", "");
+        try {
+            return of(new BigDecimal(clean).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Not a whole number of rupiah: " + text);
+        }
+    }
+
+    public Money plus(Money other) {
+        return of(Math.addExact(rupiah, other.rupiah));
+    }
+
+    public Money minus(Money other) {
+        return of(Math.subtractExact(rupiah, other.rupiah));
+    }
+
+    public Money times(long quantity) {
+        return of(Math.multiplyExact(rupiah, quantity));
+    }
+
+    // percent% of this amount, rounded half up
+    public Money percent(long percent) {
+        return of(Math.floorDiv(Math.multiplyExact(rupiah, 2 * percent) + 100, 200));
+    }
+
+    public boolean isZero() {
+        return rupiah == 0;
+    }
+
+    public boolean isPositive() {
+        return rupiah > 0;
+    }
+
+    public boolean isNegative() {
+        return rupiah < 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(rupiah, other.rupiah);
+    }
+
+    // "Rp 25,000"
+    public String format() {
+        return String.format("Rp %,d", rupiah);
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
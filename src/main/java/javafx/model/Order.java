@@ -1,56 +1,211 @@
 package javafx.model;
 
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.beans.value.WritableValue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.StringJoiner;
 
+// The basket being rung up. The subtotal and item discounts are kept up to date as items are added
+// and removed: a change only re-prices the line that changed, then the order tier is looked up, so
+// totals cost the same however large the order is. The properties only fire when a value changes.
 public class Order {
-    private Map<Product, Integer> items;
-    private static final double DISCOUNT_THRESHOLD_1 = 300000.0;
-    private static final double DISCOUNT_THRESHOLD_2 = 500000.0;
-    private static final double DISCOUNT_RATE_1 = 0.05; // 5%
-    private static final double DISCOUNT_RATE_2 = 0.10; // 10%
+    private final PricingPlan plan;
+    private final Map<Product, Integer> items = new HashMap<>();
+    private final Map<Product, Product> versions = new HashMap<>();  // The instance each line was priced with
+    private final Map<Product, PricingPlan.Applied> itemDiscounts = new HashMap<>();
+    private final Map<Promotion, Integer> appliedPromotions = new LinkedHashMap<>();  // Lines using each
+    private long subtotal;  // Rupiah
+    private long itemDiscount;  // Rupiah, sum of itemDiscounts
+    private PricingPlan.Applied orderDiscount;
+
+    private final ReadOnlyObjectWrapper<Money> subtotalProperty = new ReadOnlyObjectWrapper<>(Money.ZERO);
+    private final ReadOnlyObjectWrapper<Money> discountProperty = new ReadOnlyObjectWrapper<>(Money.ZERO);
+    private final ReadOnlyObjectWrapper<Money> totalProperty = new ReadOnlyObjectWrapper<>(Money.ZERO);
+    private final ReadOnlyStringWrapper discountDescriptionProperty = new ReadOnlyStringWrapper("");
+    private final ReadOnlyBooleanWrapper emptyProperty = new ReadOnlyBooleanWrapper(true);
 
+    // An order without promotions
     public Order() {
-        this.items = new HashMap<>();
+        this(PricingPlan.NONE);
+    }
+
+    public Order(PricingPlan plan) {
+        this.plan = plan;
     }
 
     public void addItem(Product product, int quantity) {
-        items.put(product, items.getOrDefault(product, 0) + quantity);
+        setQuantity(product, items.getOrDefault(product, 0) + quantity);
     }
 
-    public Map<Product, Integer> getItems() {
-        return items;
+    public void removeItem(Product product) {
+        setQuantity(product, 0);
     }
 
-    public double getSubtotal() {
-        double subtotal = 0;
-        for (Map.Entry<Product, Integer> entry : items.entrySet()) {
-            subtotal += entry.getKey().getPrice() * entry.getValue();
+    // Sets how many of a product are in the order; 0 or less removes it
+    public void setQuantity(Product product, int quantity) {
+        // Products are equal by id, so the line may hold an older version of this product (e.g. from
+        // before a price edit). Take it out at the price it was added with and add it back as this one.
+        Product stored = versions.remove(product);
+        int previous = nullToZero(items.remove(product));
+        if (stored != null) {
+            subtotal = Math.subtractExact(subtotal, Math.multiplyExact(stored.getPrice().rupiah(), previous));
+        }
+        if (quantity > 0) {
+            items.put(product, quantity);
+            versions.put(product, product);
+            subtotal = Math.addExact(subtotal, Math.multiplyExact(product.getPrice().rupiah(), quantity));
         }
-        return subtotal;
+        priceLine(product, Math.max(quantity, 0), LocalTime.now());
+        updateTotals();
+    }
+
+    public void clear() {
+        items.clear();
+        versions.clear();
+        itemDiscounts.clear();
+        appliedPromotions.clear();
+        subtotal = 0;
+        itemDiscount = 0;
+        updateTotals();
+    }
+
+    // Prices every line again, e.g. at checkout in case a happy hour started or ended meanwhile
+    public void reprice() {
+        LocalTime now = LocalTime.now();
+        for (Map.Entry<Product, Integer> item : items.entrySet()) {
+            priceLine(item.getKey(), item.getValue(), now);
+        }
+        updateTotals();
+    }
+
+    // Read-only view; change the order through addItem, setQuantity and removeItem
+    public Map<Product, Integer> getItems() {
+        return Collections.unmodifiableMap(items);
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
     }
 
-    public double getDiscount() {
-        double subtotal = getSubtotal();
-        if (subtotal >= DISCOUNT_THRESHOLD_2) {
-            return subtotal * DISCOUNT_RATE_2;
-        } else if (subtotal >= DISCOUNT_THRESHOLD_1) {
-            return subtotal * DISCOUNT_RATE_1;
+    // The order as it is now, fixed; taken on the JavaFX thread before a checkout goes to the background
+    public OrderSnapshot snapshot() {
+        List<OrderSnapshot.Item> frozen = new ArrayList<>(items.size());
+        for (Map.Entry<Product, Integer> item : items.entrySet()) {
+            frozen.add(new OrderSnapshot.Item(item.getKey(), item.getValue(), getItemDiscount(item.getKey())));
         }
-        return 0;
+        return new OrderSnapshot(frozen, getSubtotal(), getDiscount(), getOrderDiscount(), getTotal());
+    }
+
+    public Money getSubtotal() {
+        return subtotalProperty.get();
+    }
+
+    public Money getDiscount() {
+        return discountProperty.get();
     }
 
-    public double getTotal() {
-        return getSubtotal() - getDiscount();
+    public Money getTotal() {
+        return totalProperty.get();
+    }
+
+    // Discount on one product's line from item promotions
+    public Money getItemDiscount(Product product) {
+        PricingPlan.Applied applied = itemDiscounts.get(product);
+        return applied != null ? applied.discount() : Money.ZERO;
+    }
+
+    // Discount on the whole order from the order tier reached
+    public Money getOrderDiscount() {
+        return orderDiscount != null ? orderDiscount.discount() : Money.ZERO;
     }
 
     public String getDiscountDescription() {
-        double subtotal = getSubtotal();
-        if (subtotal >= DISCOUNT_THRESHOLD_2) {
-            return "10% Discount Applied";
-        } else if (subtotal >= DISCOUNT_THRESHOLD_1) {
-            return "5% Discount Applied";
+        return discountDescriptionProperty.get();
+    }
+
+    public ReadOnlyObjectProperty<Money> subtotalProperty() {
+        return subtotalProperty.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<Money> discountProperty() {
+        return discountProperty.getReadOnlyProperty();
+    }
+
+    public ReadOnlyObjectProperty<Money> totalProperty() {
+        return totalProperty.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty discountDescriptionProperty() {
+        return discountDescriptionProperty.getReadOnlyProperty();
+    }
+
+    public ReadOnlyBooleanProperty emptyProperty() {
+        return emptyProperty.getReadOnlyProperty();
+    }
+
+    private void priceLine(Product product, int quantity, LocalTime time) {
+        PricingPlan.Applied current = quantity > 0 ? plan.lineDiscount(product, quantity, time) : null;
+        PricingPlan.Applied previous = itemDiscounts.remove(product);  // Removed first so the key is this version
+        if (current != null) {
+            itemDiscounts.put(product, current);
+        }
+
+        if (previous != null) {
+            itemDiscount -= previous.discount().rupiah();
+            appliedPromotions.computeIfPresent(previous.promotion(),
+                    (promotion, lines) -> lines > 1 ? lines - 1 : null);
+        }
+        if (current != null) {
+            itemDiscount += current.discount().rupiah();
+            appliedPromotions.merge(current.promotion(), 1, Integer::sum);
         }
-        return "";
     }
-}
\ No newline at end of file
+
+    private void updateTotals() {
+        Money newSubtotal = Money.of(subtotal);
+        Money afterItems = newSubtotal.minus(Money.of(itemDiscount));
+        orderDiscount = plan.orderDiscount(afterItems, LocalTime.now());
+        Money discount = Money.of(itemDiscount).plus(getOrderDiscount());
+
+        setIfChanged(subtotalProperty, newSubtotal);
+        setIfChanged(discountProperty, discount);
+        setIfChanged(totalProperty, newSubtotal.minus(discount));
+        setIfChanged(discountDescriptionProperty, describeDiscounts());
+        emptyProperty.set(items.isEmpty());
+    }
+
+    // Names of the promotions applied, e.g. "Happy hour, Spend Rp 300,000: 5% off"
+    private String describeDiscounts() {
+        StringJoiner names = new StringJoiner(", ");
+        for (Promotion promotion : appliedPromotions.keySet()) {
+            names.add(promotion.name());
+        }
+        if (orderDiscount != null) {
+            names.add(orderDiscount.promotion().name());
+        }
+        return names.toString();
+    }
+
+    // Properties notify whenever they are given a new instance; comparing values keeps equal totals quiet
+    private static <T> void setIfChanged(WritableValue<T> property, T value) {
+        if (!property.getValue().equals(value)) {
+            property.setValue(value);
+        }
+    }
+
+    private static int nullToZero(Integer quantity) {
+        return quantity == null ? 0 : quantity;
+    }
+}
@@ -0,0 +1,13 @@
+package javafx.model;
+
+// One line of a saved order
+public record OrderLine(ProductType type, String variant, int quantity, Money pricePerUnit) {
+
+    public String getProductName() {
+        return type.getDisplayName() + " - " + variant;
+    }
+
+    public Money getLineTotal() {
+        return pricePerUnit.times(quantity);
+    }
+}
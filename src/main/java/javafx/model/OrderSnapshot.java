@@ -0,0 +1,27 @@
+package javafx.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// An order frozen at checkout: its items, each with the discount its item promotion gave, and its
+// totals. Immutable, so the sale can be journaled and its receipt built on a background thread while
+// the till goes on with the next order.
+public record OrderSnapshot(List<Item> items, Money subtotal, Money discount, Money orderDiscount, Money total) {
+
+    public record Item(Product product, int quantity, Money itemDiscount) {
+    }
+
+    public OrderSnapshot {
+        items = List.copyOf(items);
+    }
+
+    // Lines as printed on the receipt
+    public List<OrderLine> toOrderLines() {
+        List<OrderLine> lines = new ArrayList<>(items.size());
+        for (Item item : items) {
+            Product product = item.product();
+            lines.add(new OrderLine(product.getType(), product.getVariant(), item.quantity(), product.getPrice()));
+        }
+        return lines;
+    }
+}
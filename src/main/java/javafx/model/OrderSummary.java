@@ -0,0 +1,15 @@
+package javafx.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+// A saved order as shown in the order history. orderDate is as stored, in UTC, and is the paging
+// cursor; the history shows localOrderDate().
+public record OrderSummary(long id, LocalDateTime orderDate, Money total, List<OrderLine> lines) {
+
+    public LocalDateTime localOrderDate() {
+        return orderDate.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    }
+}
@@ -0,0 +1,9 @@
+package javafx.model;
+
+// How an order was paid: the amount handed over (cash or e-payment) and the change given back
+public record Payment(boolean isEPayment, Money amount, Money change) {
+
+    public String getMethodName() {
+        return isEPayment ? "E-payment" : "Cash";
+    }
+}
@@ -0,0 +1,81 @@
+package javafx.model;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Promotions compiled for the till: item rules are indexed by product and by type, so pricing a line
+// only looks at the rules that can apply to it, and order tiers are sorted highest first.
+// Immutable; a new plan is compiled whenever the promotions are reloaded.
+public final class PricingPlan {
+    public static final PricingPlan NONE = new PricingPlan(List.of());
+
+    // A promotion and the discount it gives
+    public record Applied(Promotion promotion, Money discount) {
+    }
+
+    private final Map<Long, List<Promotion>> byProduct = new HashMap<>();
+    private final Map<ProductType, List<Promotion>> byType = new EnumMap<>(ProductType.class);
+    private final List<Promotion> everyProduct = new ArrayList<>();
+    private final List<Promotion> tiers = new ArrayList<>();
+
+    public PricingPlan(List<Promotion> promotions) {
+        for (Promotion promotion : promotions) {
+            if (promotion.kind() == Promotion.Kind.ORDER_TIER) {
+                tiers.add(promotion);
+            } else if (promotion.productId() != 0) {
+                byProduct.computeIfAbsent(promotion.productId(), id -> new ArrayList<>()).add(promotion);
+            } else if (promotion.productType() != null) {
+                byType.computeIfAbsent(promotion.productType(), type -> new ArrayList<>()).add(promotion);
+            } else {
+                everyProduct.add(promotion);
+            }
+        }
+        tiers.sort(Comparator.comparing(Promotion::minSubtotal).reversed());
+    }
+
+    public boolean isEmpty() {
+        return tiers.isEmpty() && byProduct.isEmpty() && byType.isEmpty() && everyProduct.isEmpty();
+    }
+
+    // The best item promotion for quantity units of a product, or null if none applies.
+    // Item promotions do not stack; the one giving the largest discount wins.
+    public Applied lineDiscount(Product product, int quantity, LocalTime time) {
+        Applied best = null;
+        best = best(byProduct.get(product.getId()), product, quantity, time, best);
+        best = best(byType.get(product.getType()), product, quantity, time, best);
+        best = best(everyProduct, product, quantity, time, best);
+        return best;
+    }
+
+    // The highest order tier reached by amount, or null if none
+    public Applied orderDiscount(Money amount, LocalTime time) {
+        for (Promotion tier : tiers) {
+            if (amount.compareTo(tier.minSubtotal()) >= 0 && tier.isActiveAt(time)) {
+                return new Applied(tier, amount.percent(tier.percent()));
+            }
+        }
+        return null;
+    }
+
+    private static Applied best(List<Promotion> promotions, Product product, int quantity, LocalTime time,
+                                Applied best) {
+        if (promotions == null) {
+            return best;
+        }
+        for (Promotion promotion : promotions) {
+            if (!promotion.isActiveAt(time)) {
+                continue;
+            }
+            Money discount = promotion.lineDiscount(product.getPrice(), quantity);
+            if (discount.isPositive() && (best == null || discount.compareTo(best.discount()) > 0)) {
+                best = new Applied(promotion, discount);
+            }
+        }
+        return best;
+    }
+}
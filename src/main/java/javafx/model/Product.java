@@ -1,21 +1,52 @@
 package javafx.model;
 
+import java.util.Objects;
+
 public class Product {
+    private final long id;  // Database id, 0 until the product is saved
     private String variant;
-    private double price;
+    private Money price;
     private ProductType type;
+    private final String code;  // Barcode or PLU the till looks the product up by, null if none
+
+    public Product(ProductType type, String variant, Money price) {
+        this(0, type, variant, price, null);
+    }
+
+    public Product(long id, ProductType type, String variant, Money price) {
+        this(id, type, variant, price, null);
+    }
 
-    public Product(ProductType type, String variant, double price) {
+    public Product(long id, ProductType type, String variant, Money price, String code) {
+        this.id = id;
         this.type = type;
         this.variant = variant;
         this.price = price;
+        this.code = normalizeCode(code);
+    }
+
+    // Codes are compared as typed apart from surrounding spaces; blank means no code
+    public static String normalizeCode(String code) {
+        if (code == null || code.isBlank()) {
+            return null;
+        }
+        return code.trim();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    // Same product with the id it was given when saved
+    public Product withId(long id) {
+        return new Product(id, type, variant, price, code);
     }
 
     public String getVariant() {
         return variant;
     }
 
-    public double getPrice() {
+    public Money getPrice() {
         return price;
     }
 
@@ -23,8 +54,33 @@ public class Product {
         return type;
     }
 
+    public String getCode() {
+        return code;
+    }
+
+    // Saved products are equal when they have the same id, unsaved ones when they have the
+    // same type and variant (which the products table keeps unique among active products)
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Product other)) {
+            return false;
+        }
+        if (id != 0 || other.id != 0) {
+            return id == other.id;
+        }
+        return type == other.type && Objects.equals(variant, other.variant);
+    }
+
+    @Override
+    public int hashCode() {
+        return id != 0 ? Long.hashCode(id) : Objects.hash(type, variant);
+    }
+
     @Override
     public String toString() {
-        return String.format("%s - %s (Rp %,.0f)", type.getDisplayName(), variant, price);
+        return String.format("%s - %s (%s)", type.getDisplayName(), variant, price.format());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,5 @@
+package javafx.model;
+
+// Units sold and sales total of a single product
+public record ProductSalesStat(ProductType type, String variant, int quantity, Money totalSales) {
+}
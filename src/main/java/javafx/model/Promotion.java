@@ -0,0 +1,53 @@
+package javafx.model;
+
+import java.time.LocalTime;
+
+// A pricing rule from the promotions table.
+//   ORDER_TIER    percent off the order once it reaches minSubtotal; the highest tier reached applies
+//   PERCENT_OFF   percent off the matching items
+//   BUY_GET_FREE  of every buyQuantity + freeQuantity units of a matching product, freeQuantity are free
+// Item rules match one product (productId), one type (productType) or, with neither, every product.
+// startTime/endTime limit a rule to part of the day (a happy hour); null means all day.
+public record Promotion(long id, String name, Kind kind, ProductType productType, long productId,
+                        Money minSubtotal, int percent, int buyQuantity, int freeQuantity,
+                        LocalTime startTime, LocalTime endTime) {
+
+    public enum Kind { ORDER_TIER, PERCENT_OFF, BUY_GET_FREE }
+
+    public Promotion {
+        switch (kind) {
+            case ORDER_TIER, PERCENT_OFF -> {
+                if (percent <= 0 || percent > 100) {
+                    throw new IllegalArgumentException("Percent must be between 1 and 100: " + name);
+                }
+            }
+            case BUY_GET_FREE -> {
+                if (buyQuantity <= 0 || freeQuantity <= 0) {
+                    throw new IllegalArgumentException("Buy and free quantities must be positive: " + name);
+                }
+            }
+        }
+        if ((startTime == null) != (endTime == null)) {
+            throw new IllegalArgumentException("Start and end time must both be set or both be empty: " + name);
+        }
+    }
+
+    public boolean isActiveAt(LocalTime time) {
+        if (startTime == null) {
+            return true;
+        }
+        // A window like 22:00-02:00 runs past midnight
+        return startTime.isBefore(endTime)
+                ? !time.isBefore(startTime) && time.isBefore(endTime)
+                : !time.isBefore(startTime) || time.isBefore(endTime);
+    }
+
+    // Discount this item rule gives on quantity units at price each
+    public Money lineDiscount(Money price, int quantity) {
+        return switch (kind) {
+            case PERCENT_OFF -> price.times(quantity).percent(percent);
+            case BUY_GET_FREE -> price.times((long) quantity / (buyQuantity + freeQuantity) * freeQuantity);
+            case ORDER_TIER -> Money.ZERO;
+        };
+    }
+}
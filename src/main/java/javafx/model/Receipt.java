@@ -1,45 +1,148 @@
 package javafx.model;
 
 import java.time.LocalDateTime;
-import java.util.Map;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
+// A receipt as printed: everything on it is fixed when it is created, so a receipt rebuilt from a
+// stored order prints exactly like the original
 public class Receipt {
-    private Order order;
-    private LocalDateTime dateTime;
-    private double cashGiven;
-    private double change;
-    private boolean isEPayment;  // New field
+    private final long orderId;  // 0 if the order could not be saved
+    private final LocalDateTime dateTime;
+    private final List<OrderLine> items;
+    private final Money subtotal;
+    private final Money discount;
+    private final Money total;
+    private final Payment payment;  // null for orders saved before payments were recorded
     private static final String BUSINESS_NAME = "secondcourse.";
     private static final String SLOGAN = "'CAUSE FIRST IS NEVER ENOUGH'";
     private static final String INSTAGRAM = "@secondcourse.id";
     private static final String PHONE = "0123456789";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final Comparator<OrderLine> ITEM_ORDER = Comparator
+            .comparing((OrderLine item) -> item.type().getDisplayName())
+            .thenComparing(OrderLine::variant);
 
-    public Receipt(Order order, double cashGiven, double change, boolean isEPayment) {  // Updated constructor
-        this.order = order;
-        this.dateTime = LocalDateTime.now();
-        this.cashGiven = cashGiven;
-        this.change = change;
-        this.isEPayment = isEPayment;
+    // Sections that are the same on every receipt; the printer keeps them pre-encoded
+    private static final List<ReceiptLine> HEADER = List.of(
+            ReceiptLine.of(ReceiptLine.Kind.TITLE, BUSINESS_NAME),
+            ReceiptLine.of(ReceiptLine.Kind.SMALL, SLOGAN),
+            ReceiptLine.of(ReceiptLine.Kind.SMALL, "Instagram: " + INSTAGRAM),
+            ReceiptLine.separator(),
+            ReceiptLine.of(ReceiptLine.Kind.CENTER, "INVOICE"),
+            ReceiptLine.separator(),
+            ReceiptLine.of(ReceiptLine.Kind.SMALL, String.format("%-22s%10s", "Description", "Amount")),
+            ReceiptLine.separator());
+    private static final List<ReceiptLine> FOOTER = List.of(
+            ReceiptLine.blank(),
+            ReceiptLine.of(ReceiptLine.Kind.CENTER, "Thank you for your purchase!"),
+            ReceiptLine.blank(),
+            ReceiptLine.of(ReceiptLine.Kind.CENTER, "Best served cold"),
+            ReceiptLine.of(ReceiptLine.Kind.CENTER, "Please keep refrigerated"));
+
+    private final List<ReceiptLine> body;
+    private final List<ReceiptLine> lines;
+
+    // Receipt for an order being checked out, taken at the time it was stamped with
+    public Receipt(long orderId, LocalDateTime dateTime, OrderSnapshot order, Payment payment) {
+        this(orderId, dateTime, order.toOrderLines(), order.subtotal(), order.discount(), order.total(), payment);
+    }
+
+    // Receipt rebuilt from a stored order
+    public Receipt(long orderId, LocalDateTime dateTime, List<OrderLine> items, Money subtotal, Money discount,
+                   Money total, Payment payment) {
+        this.orderId = orderId;
+        this.dateTime = dateTime;
+        this.items = List.copyOf(items);
+        this.subtotal = subtotal;
+        this.discount = discount;
+        this.total = total;
+        this.payment = payment;
+        this.body = layoutBody();
+
+        List<ReceiptLine> lines = new ArrayList<>(HEADER);
+        lines.addAll(body);
+        lines.addAll(FOOTER);
+        this.lines = List.copyOf(lines);
+    }
+
+    // The receipt laid out once, shared by the printer, the PDF copy and the screen
+    public List<ReceiptLine> getLines() {
+        return lines;
+    }
+
+    // The same lines split into the fixed header, the part specific to this sale and the fixed footer
+    public static List<ReceiptLine> getHeader() {
+        return HEADER;
+    }
+
+    public List<ReceiptLine> getBody() {
+        return body;
+    }
+
+    public static List<ReceiptLine> getFooter() {
+        return FOOTER;
+    }
+
+    private List<ReceiptLine> layoutBody() {
+        List<ReceiptLine> lines = new ArrayList<>();
+
+        // Items, sorted by product name
+        List<OrderLine> items = new ArrayList<>(this.items);
+        items.sort(ITEM_ORDER);
+        for (int i = 0; i < items.size(); i++) {
+            OrderLine item = items.get(i);
+
+            lines.add(ReceiptLine.of(ReceiptLine.Kind.SMALL, item.getProductName()));
+            lines.add(ReceiptLine.of(ReceiptLine.Kind.SMALL, String.format("%dx%,d = %s",
+                    item.quantity(), item.pricePerUnit().rupiah(), item.getLineTotal().format())));
+            if (i < items.size() - 1) {
+                lines.add(ReceiptLine.blank());
+            }
+        }
+        lines.add(ReceiptLine.separator());
+
+        // Totals
+        if (discount.isPositive()) {
+            // Percentage rounded half up, in whole numbers
+            long percent = (discount.rupiah() * 200 + subtotal.rupiah()) / (subtotal.rupiah() * 2);
+            lines.add(ReceiptLine.of(ReceiptLine.Kind.RIGHT, "Subtotal: " + subtotal.format()));
+            lines.add(ReceiptLine.of(ReceiptLine.Kind.RIGHT, String.format("Discount (%d%%): -%s",
+                    percent, discount.format())));
+        }
+        lines.add(ReceiptLine.of(ReceiptLine.Kind.RIGHT, "Total: " + total.format()));
+        if (payment != null) {
+            lines.add(ReceiptLine.of(ReceiptLine.Kind.RIGHT,
+                    payment.getMethodName() + ": " + payment.amount().format()));
+            lines.add(ReceiptLine.of(ReceiptLine.Kind.RIGHT, "Change: " + payment.change().format()));
+        }
+        lines.add(ReceiptLine.separator());
+        lines.add(ReceiptLine.separator());
+
+        lines.add(ReceiptLine.of(ReceiptLine.Kind.SMALL, "Date: " + dateTime.format(DATE_FORMAT)));
+        return List.copyOf(lines);
     }
 
-    public Order getOrder() {
-        return order;
+    public long getOrderId() {
+        return orderId;
     }
 
     public LocalDateTime getDateTime() {
         return dateTime;
     }
 
-    public double getCashGiven() {
-        return cashGiven;
+    public List<OrderLine> getItems() {
+        return items;
     }
 
-    public double getChange() {
-        return change;
+    public Money getTotal() {
+        return total;
     }
 
-    public boolean isEPayment() {  // New getter
-        return isEPayment;
+    public Payment getPayment() {
+        return payment;
     }
 
     public String getBusinessName() {
@@ -0,0 +1,26 @@
+package javafx.model;
+
+// One line of a receipt layout. The kind says how the line is placed and styled;
+// each renderer (paper, PDF, screen) maps it to its own output.
+public record ReceiptLine(Kind kind, String text) {
+    public enum Kind {
+        TITLE,      // Centered, large
+        CENTER,
+        RIGHT,
+        SMALL,      // Left aligned, small font
+        SEPARATOR,  // A full-width rule; text is empty
+        BLANK       // An empty line; text is empty
+    }
+
+    public static ReceiptLine of(Kind kind, String text) {
+        return new ReceiptLine(kind, text);
+    }
+
+    public static ReceiptLine separator() {
+        return new ReceiptLine(Kind.SEPARATOR, "");
+    }
+
+    public static ReceiptLine blank() {
+        return new ReceiptLine(Kind.BLANK, "");
+    }
+}
@@ -0,0 +1,5 @@
+package javafx.model;
+
+// Units sold and sales value over a period
+public record SalesTotals(int quantity, Money gross, Money discount, Money net) {
+}
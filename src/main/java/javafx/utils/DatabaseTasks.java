@@ -0,0 +1,94 @@
+package javafx.utils;
+
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.concurrent.Task;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Runs database work on background threads so the JavaFX Application Thread never waits for SQLite.
+// Callbacks run back on the FX thread. A task that is cancelled (e.g. because the screen moved on to
+// a newer query) never calls its callbacks, so stale results are dropped.
+public class DatabaseTasks {
+    private static final int THREADS = 2;  // One writer and one reader can run at the same time
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    // Work to run in the background
+    public interface Work<T> {
+        T call() throws Exception;
+    }
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "database-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // True while any task is running; only changed on the FX thread
+    private static final ReadOnlyBooleanWrapper busy = new ReadOnlyBooleanWrapper(false);
+    private static int running;
+
+    private DatabaseTasks() {}
+
+    // Starts the work in the background. Must be called on the FX thread.
+    public static <T> Task<T> run(Work<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        Task<T> task = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                return work.call();
+            }
+        };
+        task.setOnSucceeded(e -> {
+            finished();
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            finished();
+            Throwable error = task.getException();
+            System.err.println("Database task failed: " + error.getMessage());
+            onFailure.accept(error);
+        });
+        task.setOnCancelled(e -> finished());
+
+        running++;
+        busy.set(true);
+        executor.execute(task);
+        return task;
+    }
+
+    // Cancels a task if it has not finished yet; null is ignored
+    public static void cancel(Task<?> task) {
+        if (task != null && !task.isDone()) {
+            task.cancel();
+        }
+    }
+
+    // Bind a progress indicator's visibility to this to show that the database is busy
+    public static ReadOnlyBooleanProperty busyProperty() {
+        return busy.getReadOnlyProperty();
+    }
+
+    private static void finished() {
+        running--;
+        busy.set(running > 0);
+    }
+
+    // Lets queued work (e.g. an order being saved) finish before the database is closed
+    public static void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Database tasks did not finish within " + SHUTDOWN_TIMEOUT_SECONDS + " seconds");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package javafx.utils;
+
+import com.github.anastaciocintra.escpos.EscPos;
+import com.github.anastaciocintra.escpos.Style;
+import javafx.model.Receipt;
+import javafx.model.ReceiptLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Renders a receipt as the ESC/POS bytes for the thermal printer, ending with a paper cut.
+// The fixed header and footer are encoded once and cached by their content, so only the part
+// of the receipt specific to the sale is encoded per print; a changed business name simply
+// produces a new cache entry.
+public class EscPosReceiptRenderer implements ReceiptRenderer<byte[]> {
+    private static final int CHAR_WIDTH = TextReceiptRenderer.CHAR_WIDTH;
+    private static final int MAX_CACHED_SECTIONS = 8;
+
+    // ESC/POS styles, built once and shared by every receipt
+    private static final Style CENTER_STYLE = new Style().setJustification(Style.Justification.Center);
+    private static final Style RIGHT_STYLE = new Style().setJustification(Style.Justification.Right);
+    private static final Style TITLE_STYLE = new Style().setJustification(Style.Justification.Center).setFontSize(Style.FontSize._2, Style.FontSize._2);
+    private static final Style SMALL_STYLE = new Style().setJustification(Style.Justification.Left_Default).setFontSize(Style.FontSize._1, Style.FontSize._1).setFontName(Style.FontName.Font_B);
+
+    private static final Map<List<ReceiptLine>, byte[]> sections = new ConcurrentHashMap<>();
+    private static final byte[] CUT = encodeCut();
+
+    // Encodes the fixed sections ahead of the first receipt
+    public static void preload() {
+        cached(Receipt.getHeader());
+        cached(Receipt.getFooter());
+    }
+
+    // Whole receipt as one array, so it goes to the printer in a single write
+    public byte[] render(Receipt receipt) throws IOException {
+        byte[] header = cached(Receipt.getHeader());
+        byte[] body = encode(receipt.getBody());
+        byte[] footer = cached(Receipt.getFooter());
+
+        byte[] bytes = new byte[header.length + body.length + footer.length + CUT.length];
+        int offset = 0;
+        for (byte[] part : new byte[][] {header, body, footer, CUT}) {
+            System.arraycopy(part, 0, bytes, offset, part.length);
+            offset += part.length;
+        }
+        return bytes;
+    }
+
+    @Override
+    public byte[] render(List<ReceiptLine> lines) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(2048);
+        bytes.write(encode(lines));
+        bytes.write(CUT);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] cached(List<ReceiptLine> section) {
+        byte[] bytes = sections.get(section);
+        if (bytes == null) {
+            if (sections.size() >= MAX_CACHED_SECTIONS) {
+                sections.clear();
+            }
+            bytes = encodeUnchecked(section);
+            sections.put(section, bytes);
+        }
+        return bytes;
+    }
+
+    private static byte[] encode(List<ReceiptLine> lines) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        EscPos escpos = new EscPos(bytes);
+
+        for (ReceiptLine line : lines) {
+            switch (line.kind()) {
+                case TITLE -> escpos.writeLF(TITLE_STYLE, line.text());
+                case CENTER -> escpos.writeLF(CENTER_STYLE, line.text());
+                case RIGHT -> escpos.writeLF(RIGHT_STYLE, line.text());
+                case SMALL -> escpos.writeLF(SMALL_STYLE, line.text());
+                case SEPARATOR -> escpos.writeLF(CENTER_STYLE, "-".repeat(CHAR_WIDTH));
+                case BLANK -> escpos.feed(1);
+            }
+        }
+        escpos.close();
+        return bytes.toByteArray();
+    }
+
+    // Writing to memory never actually fails
+    private static byte[] encodeUnchecked(List<ReceiptLine> lines) {
+        try {
+            return encode(lines);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode receipt section", e);
+        }
+    }
+
+    private static byte[] encodeCut() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EscPos escpos = new EscPos(bytes)) {
+            escpos.feed(3).cut(EscPos.CutMode.FULL);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode paper cut", e);
+        }
+        return bytes.toByteArray();
+    }
+}
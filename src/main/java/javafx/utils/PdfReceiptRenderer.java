@@ -0,0 +1,105 @@
+package javafx.utils;
+
+import javafx.model.ReceiptLine;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// Renders a receipt as a one-page PDF the width of the paper roll and as tall as the receipt.
+// The PDF is written directly, without AWT or a print service. Text uses Courier, one of the
+// standard PDF fonts every viewer provides, so no font needs to be embedded.
+public class PdfReceiptRenderer implements ReceiptRenderer<byte[]> {
+    private static final float POINTS_PER_MM = 72f / 25.4f;
+    private static final float PAGE_WIDTH = 58 * POINTS_PER_MM;
+    private static final float FONT_SIZE = 8;
+    private static final float LEADING = 10;
+    private static final float MARGIN = 6;
+
+    private final TextReceiptRenderer text = new TextReceiptRenderer();
+
+    @Override
+    public byte[] render(List<ReceiptLine> lines) {
+        List<String> textLines = text.render(lines);
+        float height = textLines.size() * LEADING + 2 * MARGIN;
+
+        // Page content: one text object, each line moved down by the leading
+        StringBuilder content = new StringBuilder();
+        content.append("BT\n/F1 ").append(format(FONT_SIZE)).append(" Tf\n")
+                .append(format(LEADING)).append(" TL\n")
+                .append(format(MARGIN)).append(' ').append(format(height - MARGIN - FONT_SIZE)).append(" Td\n");
+        for (String line : textLines) {
+            content.append('(').append(escape(line)).append(") Tj T*\n");
+        }
+        content.append("ET\n");
+        byte[] stream = content.toString().getBytes(StandardCharsets.ISO_8859_1);
+
+        Writer pdf = new Writer();
+        pdf.raw("%PDF-1.4\n");
+        pdf.object("<< /Type /Catalog /Pages 2 0 R >>");
+        pdf.object("<< /Type /Pages /Kids [3 0 R] /Count 1 >>");
+        pdf.object("<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + format(PAGE_WIDTH) + " " + format(height) + "]"
+                + " /Resources << /Font << /F1 4 0 R >> >> /Contents 5 0 R >>");
+        pdf.object("<< /Type /Font /Subtype /Type1 /BaseFont /Courier /Encoding /WinAnsiEncoding >>");
+        pdf.stream(stream);
+        return pdf.finish();
+    }
+
+    // Text in a PDF string must escape backslashes and parentheses; characters outside Latin-1 become '?'
+    private static String escape(String line) {
+        StringBuilder sb = new StringBuilder(line.length());
+        for (char c : line.toCharArray()) {
+            if (c == '\\' || c == '(' || c == ')') {
+                sb.append('\\').append(c);
+            } else if (c < 32 || c > 255) {
+                sb.append('?');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String format(float value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+
+    // Numbers the objects and records their offsets for the cross-reference table
+    private static class Writer {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        private final List<Integer> offsets = new ArrayList<>();
+
+        void raw(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        void object(String body) {
+            offsets.add(out.size());
+            raw(offsets.size() + " 0 obj\n" + body + "\nendobj\n");
+        }
+
+        void stream(byte[] data) {
+            offsets.add(out.size());
+            raw(offsets.size() + " 0 obj\n<< /Length " + data.length + " >>\nstream\n");
+            out.write(data, 0, data.length);
+            raw("\nendstream\nendobj\n");
+        }
+
+        byte[] finish() {
+            int xref = out.size();
+            StringBuilder sb = new StringBuilder();
+            sb.append("xref\n0 ").append(offsets.size() + 1).append('\n');
+            sb.append("0000000000 65535 f \n");
+            for (int offset : offsets) {
+                sb.append(String.format("%010d 00000 n \n", offset));
+            }
+            sb.append("trailer\n<< /Size ").append(offsets.size() + 1).append(" /Root 1 0 R >>\n");
+            sb.append("startxref\n").append(xref).append("\n%%EOF\n");
+            raw(sb.toString());
+            return out.toByteArray();
+        }
+    }
+}
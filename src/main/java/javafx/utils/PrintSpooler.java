@@ -0,0 +1,164 @@
+package javafx.utils;
+
+import database.Database;
+import javafx.application.Platform;
+import javafx.model.Receipt;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Prints receipts on a background thread so the till can take the next customer while the previous
+// receipt is still printing. Each job archives the receipt and then prints to the thermal printer,
+// retrying printer errors a few times. Status changes are reported on the FX thread.
+public class PrintSpooler {
+    private static final int CAPACITY = 20;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 2000;  // Doubled after every failed attempt
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    public enum Status { QUEUED, PRINTING, RETRYING, DONE, FAILED }
+
+    // Called on the FX thread whenever a job changes status; message is empty unless something went wrong
+    public interface StatusListener {
+        void statusChanged(Receipt receipt, Status status, String message);
+    }
+
+    private record Job(Receipt receipt, StatusListener listener, boolean archive) {
+    }
+
+    private static final BlockingQueue<Job> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private static final AtomicInteger printing = new AtomicInteger();
+    private static final AtomicInteger maxDepth = new AtomicInteger();
+    private static final AtomicInteger printed = new AtomicInteger();
+    private static final AtomicInteger failed = new AtomicInteger();
+    private static final Thread worker = new Thread(PrintSpooler::run, "print-spooler");
+
+    static {
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private PrintSpooler() {}
+
+    // Queues a receipt for printing; returns false if the queue is full
+    public static boolean submit(Receipt receipt, StatusListener listener) {
+        return enqueue(new Job(receipt, listener, true));
+    }
+
+    // Queues another copy of a receipt that was printed before; it is already in the archive
+    public static boolean reprint(Receipt receipt, StatusListener listener) {
+        return enqueue(new Job(receipt, listener, false));
+    }
+
+    private static boolean enqueue(Job job) {
+        if (!queue.offer(job)) {
+            return false;
+        }
+        maxDepth.accumulateAndGet(getQueueDepth(), Math::max);
+        report(job, Status.QUEUED, "");
+        return true;
+    }
+
+    // Receipts waiting or being printed
+    public static int getQueueDepth() {
+        return queue.size() + printing.get();
+    }
+
+    private static void run() {
+        // Find the printer and encode the fixed parts of the receipt before the first receipt needs them
+        EscPosReceiptRenderer.preload();
+        if (!PrinterSession.checkHealth()) {
+            System.err.println("Printer not ready: " + PrinterSession.getLastError());
+        }
+
+        while (true) {
+            Job job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            printing.incrementAndGet();
+            try {
+                print(job);
+            } finally {
+                printing.decrementAndGet();
+            }
+        }
+    }
+
+    private static void print(Job job) {
+        report(job, Status.PRINTING, "");
+        if (job.archive()) {
+            archive(job.receipt());
+        }
+
+        ThermalPrinter printer = new ThermalPrinter(job.receipt());
+        long delay = RETRY_DELAY_MILLIS;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                printer.printToThermalPrinter();
+                printed.incrementAndGet();
+                report(job, Status.DONE, "");
+                return;
+            } catch (Exception e) {
+                System.err.println("Print attempt " + attempt + " failed: " + e.getMessage());
+                if (attempt == MAX_ATTEMPTS) {
+                    failed.incrementAndGet();
+                    report(job, Status.FAILED, e.getMessage());
+                    return;
+                }
+                report(job, Status.RETRYING, e.getMessage());
+            }
+
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                report(job, Status.FAILED, "Printing was interrupted");
+                return;
+            }
+            delay *= 2;
+        }
+    }
+
+    // Archived once, before printing; a receipt that cannot be archived is still printed
+    private static void archive(Receipt receipt) {
+        try {
+            Database.getReceiptArchive().append(receipt.getOrderId(),
+                    receipt.getDateTime().toLocalDate(), receipt.getLines());
+        } catch (Exception e) {
+            System.err.println("Error archiving receipt for order #" + receipt.getOrderId() + ": " + e.getMessage());
+        }
+    }
+
+    private static void report(Job job, Status status, String message) {
+        if (job.listener() == null) {
+            return;
+        }
+        try {
+            Platform.runLater(() -> job.listener().statusChanged(job.receipt(), status, message));
+        } catch (IllegalStateException e) {
+            // The FX toolkit has already exited, nobody is left to tell
+        }
+    }
+
+    // Gives queued receipts a chance to finish printing before the application exits
+    public static void shutdown() {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+        while (getQueueDepth() > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        System.out.println("Print spooler receipts printed: " + printed.get() + ", failed: " + failed.get()
+                + ", max queue depth: " + maxDepth.get() + ", still queued: " + getQueueDepth());
+        PrinterSession.close();
+    }
+}
@@ -0,0 +1,160 @@
+package javafx.utils;
+
+import com.github.anastaciocintra.escpos.EscPos;
+import com.github.anastaciocintra.output.PrinterOutputStream;
+
+import javax.print.PrintService;
+import javax.print.PrintServiceLookup;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Arrays;
+
+// Long-lived connection to the receipt printer. The printer is looked up once and kept until a print
+// fails, then looked up again on the next receipt. The target is chosen with -Dpos.printer:
+//   (unset)               the system's default printer
+//   <name>                the printer with that name (or part of it)
+//   socket:<host>:<port>  a network ESC/POS printer, e.g. socket:192.168.1.50:9100
+//   file:<path>           append the ESC/POS bytes to a file, for testing without a printer
+// Socket and file targets keep one stream open across receipts. System printers get one print job
+// per receipt, because the job is only sent when its stream is closed.
+public class PrinterSession {
+    private static final int CONNECT_TIMEOUT_MILLIS = 3000;
+    private static final String TARGET = System.getProperty("pos.printer", "").trim();
+
+    // Writes one receipt
+    public interface Job {
+        void write(EscPos escpos) throws IOException;
+    }
+
+    private static PrintService service;  // Cached system printer
+    private static Socket socket;
+    private static EscPos stream;  // Open EscPos for socket and file targets
+    private static String lastError = "";
+
+    private PrinterSession() {}
+
+    public static synchronized void print(Job job) throws IOException {
+        try {
+            if (isStreamTarget()) {
+                EscPos escpos = openStream();
+                job.write(escpos);
+                escpos.flush();
+            } else {
+                EscPos escpos = new EscPos(new PrinterOutputStream(lookupService()));
+                job.write(escpos);
+                escpos.close();  // Sends the print job
+            }
+            lastError = "";
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage();
+            reset();  // Look the printer up again next time
+            throw e;
+        }
+    }
+
+    // Checks that the printer can be reached, connecting to it if needed; see getLastError() when false
+    public static synchronized boolean checkHealth() {
+        try {
+            if (isStreamTarget()) {
+                openStream();
+                if (socket != null && (socket.isClosed() || !socket.isConnected())) {
+                    throw new IOException("Printer connection closed");
+                }
+            } else {
+                PrintService current = lookupService();
+                boolean installed = Arrays.asList(PrintServiceLookup.lookupPrintServices(null, null)).contains(current);
+                if (!installed) {
+                    throw new IOException("Printer " + current.getName() + " is no longer installed");
+                }
+            }
+            lastError = "";
+            return true;
+        } catch (IOException | RuntimeException e) {
+            lastError = e.getMessage();
+            reset();
+            return false;
+        }
+    }
+
+    public static synchronized String getLastError() {
+        return lastError;
+    }
+
+    public static synchronized String describe() {
+        if (isStreamTarget()) {
+            return TARGET;
+        }
+        return service != null ? service.getName() : "(printer not looked up yet)";
+    }
+
+    public static synchronized void close() {
+        reset();
+    }
+
+    private static boolean isStreamTarget() {
+        return TARGET.startsWith("socket:") || TARGET.startsWith("file:");
+    }
+
+    private static PrintService lookupService() throws IOException {
+        if (service == null) {
+            try {
+                service = TARGET.isEmpty()
+                        ? PrintServiceLookup.lookupDefaultPrintService()
+                        : PrinterOutputStream.getPrintServiceByName(TARGET);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+            if (service == null) {
+                throw new IOException("No printer found");
+            }
+            System.out.println("Using printer: " + service.getName());
+        }
+        return service;
+    }
+
+    private static EscPos openStream() throws IOException {
+        if (stream == null) {
+            OutputStream out;
+            if (TARGET.startsWith("socket:")) {
+                String address = TARGET.substring("socket:".length());
+                int colon = address.lastIndexOf(':');
+                if (colon < 0) {
+                    throw new IOException("Printer address must be socket:<host>:<port>, got " + TARGET);
+                }
+                socket = new Socket();
+                socket.connect(new InetSocketAddress(address.substring(0, colon),
+                        Integer.parseInt(address.substring(colon + 1))), CONNECT_TIMEOUT_MILLIS);
+                out = socket.getOutputStream();
+            } else {
+                out = new FileOutputStream(TARGET.substring("file:".length()), true);
+            }
+            stream = new EscPos(new BufferedOutputStream(out));
+            System.out.println("Connected to printer: " + TARGET);
+        }
+        return stream;
+    }
+
+    private static void reset() {
+        service = null;
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                System.err.println("Error closing printer connection: " + e.getMessage());
+            }
+            stream = null;
+        }
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                System.err.println("Error closing printer socket: " + e.getMessage());
+            }
+            socket = null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package javafx.utils;
+
+import database.Database;
+import javafx.application.Platform;
+import javafx.model.Product;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.TextField;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+// Type-ahead search for a product combo box: as the cashier types, the combo box lists the best
+// matches from the catalog's search index and opens, and Enter picks the top match. With the search
+// box empty the combo box lists what the screen would show without searching. The list follows
+// catalog changes, keeping the selected product if it is still listed.
+public class ProductSearchBox {
+    // Enough to scroll through at a glance; keeps the popup cheap to lay out on every keystroke
+    private static final int MAX_RESULTS = 50;
+
+    private final TextField searchField;
+    private final ComboBox<Product> comboBox;
+    private final Supplier<List<Product>> unfiltered;
+
+    public ProductSearchBox(TextField searchField, ComboBox<Product> comboBox, Supplier<List<Product>> unfiltered) {
+        this.searchField = searchField;
+        this.comboBox = comboBox;
+        this.unfiltered = unfiltered;
+
+        Database.getCatalog().addListener(this::refresh, Platform::runLater);
+        searchField.textProperty().addListener((obs, oldText, newText) -> refresh());
+        searchField.setOnAction(event -> {
+            if (isSearching() && !comboBox.getItems().isEmpty()) {
+                comboBox.getSelectionModel().selectFirst();
+                comboBox.hide();
+            }
+        });
+    }
+
+    public boolean isSearching() {
+        return !searchField.getText().isBlank();
+    }
+
+    // Lists the products again, e.g. after the catalog changed
+    public void refresh() {
+        Product selected = comboBox.getValue();
+        if (!isSearching()) {
+            comboBox.getItems().setAll(unfiltered.get());
+            reselect(selected);
+            return;
+        }
+        List<Product> results = Database.getCatalog().search(searchField.getText(), MAX_RESULTS);
+        comboBox.getItems().setAll(results);
+        reselect(selected);
+        if (results.isEmpty()) {
+            comboBox.hide();
+        } else if (searchField.isFocused()) {
+            comboBox.show();
+            searchField.requestFocus();  // Keep typing in the search box while the list is open
+        }
+    }
+
+    // Products are equal by id, so an edited product is selected again in its new version
+    private void reselect(Product selected) {
+        int index = selected != null ? comboBox.getItems().indexOf(selected) : -1;
+        if (index >= 0) {
+            comboBox.getSelectionModel().select(index);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package javafx.utils;
+
+import javafx.model.ReceiptLine;
+
+import java.io.IOException;
+import java.util.List;
+
+// Turns a receipt layout into one kind of output (printer bytes, text lines, ...)
+public interface ReceiptRenderer<T> {
+    T render(List<ReceiptLine> lines) throws IOException;
+}
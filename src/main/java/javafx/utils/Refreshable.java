@@ -0,0 +1,7 @@
+package javafx.utils;
+
+// Controllers of screens that SceneUtil keeps loaded implement this to bring themselves up to date
+// each time their screen is shown again (initialize() only runs the first time)
+public interface Refreshable {
+    void refresh();
+}
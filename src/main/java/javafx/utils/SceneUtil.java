@@ -7,28 +7,58 @@ import javafx.scene.Scene;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
+// Navigation between the main screens. Each screen's FXML is loaded once and kept with its
+// controller; the window has a single scene (with the stylesheet added once) and switching
+// screens swaps its root. A screen shown again is refreshed through its controller rather than
+// reloaded. Must be called on the JavaFX thread.
 public class SceneUtil {
 
     // Constants for window dimensions (optional)
     public static final int DEFAULT_WINDOW_WIDTH = 800;
     public static final int DEFAULT_WINDOW_HEIGHT = 600;
-    // Utility method to change the scene
-    public static void switchScene(String fxmlFileName) {
-        try {
-            // Load the FXML file
-            FXMLLoader loader = new FXMLLoader(SceneUtil.class.getResource("/javafx/" + fxmlFileName));
-            Parent root = loader.load();
+    private static final String STYLESHEET = "/css/HomePage.css";
 
-            // Get the primary stage (assuming you use MainApp to get the stage)
-            Stage stage = MainApp.getPrimaryStage();
+    private record Screen(Parent root, Object controller) {
+    }
 
-            // Create a new scene with default dimensions (can be customized)
-            Scene scene = new Scene(root, DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT);
+    private static final Map<String, Screen> screens = new HashMap<>();
 
-            // Set the scene and show it
+    // Shows a screen in the main window and returns its controller, e.g. to pass it data
+    @SuppressWarnings("unchecked")
+    public static <T> T show(String fxmlFileName, String title) throws IOException {
+        Screen screen = screens.get(fxmlFileName);
+        if (screen == null) {
+            FXMLLoader loader = new FXMLLoader(SceneUtil.class.getResource("/javafx/" + fxmlFileName));
+            Parent root = loader.load();
+            screen = new Screen(root, loader.getController());
+            screens.put(fxmlFileName, screen);
+        } else if (screen.controller() instanceof Refreshable refreshable) {
+            refreshable.refresh();
+        }
+
+        Stage stage = MainApp.getPrimaryStage();
+        Scene scene = stage.getScene();
+        if (scene == null) {
+            scene = new Scene(screen.root(), DEFAULT_WINDOW_WIDTH, DEFAULT_WINDOW_HEIGHT);
+            scene.getStylesheets().add(SceneUtil.class.getResource(STYLESHEET).toExternalForm());
             stage.setScene(scene);
+        } else if (scene.getRoot() != screen.root()) {
+            scene.setRoot(screen.root());
+        }
+        stage.setTitle(title);
+        if (!stage.isShowing()) {
             stage.show();
+        }
+        return (T) screen.controller();
+    }
+
+    // Utility method to change the scene, keeping the window title
+    public static void switchScene(String fxmlFileName) {
+        try {
+            show(fxmlFileName, MainApp.getPrimaryStage().getTitle());
         } catch (IOException e) {
             e.printStackTrace();  // Handle the exception or log it
         }
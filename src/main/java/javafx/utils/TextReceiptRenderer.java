@@ -0,0 +1,38 @@
+package javafx.utils;
+
+import javafx.model.ReceiptLine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Renders a receipt as fixed-width text lines, as on the 58 mm paper roll; used for the PDF copy
+// and the on-screen receipt
+public class TextReceiptRenderer implements ReceiptRenderer<List<String>> {
+    public static final int CHAR_WIDTH = 32;
+
+    @Override
+    public List<String> render(List<ReceiptLine> lines) {
+        List<String> text = new ArrayList<>(lines.size());
+        for (ReceiptLine line : lines) {
+            text.add(switch (line.kind()) {
+                case TITLE, CENTER -> centerText(line.text());
+                case RIGHT -> rightAlign(line.text());
+                case SMALL -> line.text();
+                case SEPARATOR -> "-".repeat(CHAR_WIDTH);
+                case BLANK -> "";
+            });
+        }
+        return text;
+    }
+
+    private static String centerText(String text) {
+        if (text.length() >= CHAR_WIDTH) return text;
+        int spaces = (CHAR_WIDTH - text.length()) / 2;
+        return " ".repeat(spaces) + text;
+    }
+
+    private static String rightAlign(String text) {
+        if (text.length() >= CHAR_WIDTH) return text;
+        return " ".repeat(CHAR_WIDTH - text.length()) + text;
+    }
+}
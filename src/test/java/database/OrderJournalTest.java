@@ -0,0 +1,87 @@
+package database;
+
+import javafx.model.Money;
+import javafx.model.Payment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderJournalTest {
+    @TempDir
+    Path directory;
+
+    private static PendingOrder order(long id, long change) {
+        List<PendingOrder.Line> lines = List.of(
+                new PendingOrder.Line(1, 2, 150000, 15000),
+                new PendingOrder.Line(2, 1, 127500, 12750));
+        Payment payment = new Payment(false, Money.of(400000 + change), Money.of(change));
+        return new PendingOrder(id, LocalDateTime.of(2024, 3, 1, 10, 0, 5), 400000, payment, lines);
+    }
+
+    @Test
+    void journalLineRoundTrips() {
+        PendingOrder order = order(7, 50);
+        assertEquals(order, PendingOrder.fromJournalLine(order.toJournalLine()));
+    }
+
+    @Test
+    void readAllReturnsAppendedOrders() throws IOException {
+        Path path = directory.resolve("orders.journal");
+        OrderJournal journal = new OrderJournal(path, false);
+        journal.append(order(1, 0));
+        journal.append(order(2, 50));
+        journal.close();
+
+        assertEquals(List.of(order(1, 0), order(2, 50)), new OrderJournal(path, false).readAll());
+    }
+
+    @Test
+    void readAllSkipsTornLastLine() throws IOException {
+        Path path = directory.resolve("orders.journal");
+        OrderJournal journal = new OrderJournal(path, false);
+        journal.append(order(1, 0));
+        journal.close();
+
+        // A crash while appending order 2 left its line without the last digit and newline; what is
+        // left ("...|5") would parse as a change of Rp 5
+        String line = order(2, 50).toJournalLine();
+        Files.writeString(path, line.substring(0, line.length() - 1), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertEquals(List.of(order(1, 0)), new OrderJournal(path, false).readAll());
+    }
+
+    @Test
+    void appendAfterClearStartsAgain() throws IOException {
+        Path path = directory.resolve("orders.journal");
+        OrderJournal journal = new OrderJournal(path, false);
+        journal.append(order(1, 0));
+        journal.clear();
+        journal.append(order(2, 0));
+
+        assertEquals(List.of(order(2, 0)), journal.readAll());
+        journal.close();
+    }
+
+    @Test
+    void lineWithoutPaymentIsRejected() {
+        String line = order(3, 0).toJournalLine();
+        String withoutPayment = line.substring(0, line.indexOf("|false"));
+        assertThrows(IllegalArgumentException.class, () -> PendingOrder.fromJournalLine(withoutPayment));
+    }
+
+    @Test
+    void fractionalAmountIsRejected() {
+        String line = order(4, 0).toJournalLine().replace("|400000|", "|400000.0|");
+        assertThrows(NumberFormatException.class, () -> PendingOrder.fromJournalLine(line));
+    }
+}
@@ -0,0 +1,54 @@
+package database;
+
+import javafx.model.Money;
+import javafx.model.Payment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderWriterTest {
+    @TempDir
+    Path directory;
+
+    private static PendingOrder order(long id) {
+        Payment payment = new Payment(false, Money.of(150000), Money.ZERO);
+        return new PendingOrder(id, LocalDateTime.of(2024, 3, 1, 10, 0), 150000, payment,
+                List.of(new PendingOrder.Line(1, 1, 150000, 0)));
+    }
+
+    @Test
+    void runtimeErrorSetsOrderAsideAndKeepsWriting() throws IOException {
+        OrderJournal journal = new OrderJournal(directory.resolve("orders.journal"), false);
+        OrderJournal failedJournal = new OrderJournal(directory.resolve("orders.failed"), false);
+        List<Long> saved = new ArrayList<>();
+        List<Long> reported = new ArrayList<>();
+        OrderWriter writer = new OrderWriter(journal, failedJournal, orders -> {
+            for (PendingOrder order : orders) {
+                if (order.id() == 2) {
+                    throw new IllegalStateException("bug in saveOrders");
+                }
+            }
+            synchronized (saved) {
+                orders.forEach(order -> saved.add(order.id()));
+            }
+        }, order -> reported.add(order.id()));
+        writer.start();
+
+        writer.submit(order(1));
+        writer.submit(order(2));
+        writer.submit(order(3));
+        writer.close();
+
+        assertEquals(List.of(1L, 3L), saved.stream().sorted().toList());
+        assertEquals(List.of(2L), reported);
+        assertEquals(List.of(order(2)), failedJournal.readAll());
+        assertEquals(List.of(), journal.readAll());
+    }
+}
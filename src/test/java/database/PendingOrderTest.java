@@ -0,0 +1,81 @@
+package database;
+
+import javafx.model.Money;
+import javafx.model.OrderSnapshot;
+import javafx.model.Payment;
+import javafx.model.Product;
+import javafx.model.ProductType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PendingOrderTest {
+    private static final LocalDateTime DATE = LocalDateTime.of(2024, 3, 1, 10, 0);
+    private static final Payment PAYMENT = new Payment(true, Money.ZERO, Money.ZERO);
+
+    private static OrderSnapshot.Item item(long id, long price, int quantity, long itemDiscount) {
+        Product product = new Product(id, ProductType.TART, "Variant " + id, Money.of(price));
+        return new OrderSnapshot.Item(product, quantity, Money.of(itemDiscount));
+    }
+
+    // The order discount is the item promotions plus the order tier discount
+    private static OrderSnapshot snapshot(List<OrderSnapshot.Item> items, long orderDiscount) {
+        long subtotal = 0;
+        long itemDiscounts = 0;
+        for (OrderSnapshot.Item item : items) {
+            subtotal += item.product().getPrice().rupiah() * item.quantity();
+            itemDiscounts += item.itemDiscount().rupiah();
+        }
+        long discount = itemDiscounts + orderDiscount;
+        return new OrderSnapshot(items, Money.of(subtotal), Money.of(discount), Money.of(orderDiscount),
+                Money.of(subtotal - discount));
+    }
+
+    @Test
+    void lineDiscountsAddUpToOrderDiscount() {
+        // Equal lines and a tier discount that does not divide evenly between them
+        OrderSnapshot order = snapshot(List.of(item(1, 10001, 1, 0), item(2, 10001, 1, 0), item(3, 10001, 1, 0)), 100);
+        PendingOrder pending = PendingOrder.of(1, DATE, order, PAYMENT);
+
+        assertEquals(order.discount().rupiah(), pending.discount());
+        assertEquals(List.of(33L, 33L, 34L), pending.lines().stream().map(PendingOrder.Line::discount).toList());
+    }
+
+    @Test
+    void lineDiscountsAddUpWithItemPromotions() {
+        OrderSnapshot order = snapshot(List.of(item(1, 150000, 3, 45000), item(2, 127500, 1, 0),
+                item(3, 33333, 7, 2333)), 31337);
+        PendingOrder pending = PendingOrder.of(1, DATE, order, PAYMENT);
+
+        assertEquals(order.discount().rupiah(), pending.discount());
+        for (int i = 0; i < order.items().size(); i++) {
+            // Each line keeps its own item promotion on top of its share
+            assertTrue(pending.lines().get(i).discount() >= order.items().get(i).itemDiscount().rupiah());
+        }
+    }
+
+    @Test
+    void lineDiscountsAddUpForManyOrders() {
+        for (long tier = 0; tier < 500; tier += 7) {
+            for (int quantity = 1; quantity <= 5; quantity++) {
+                OrderSnapshot order = snapshot(List.of(item(1, 12345, quantity, tier), item(2, 999, 2, 0),
+                        item(3, 27500, 1, 500)), tier * 3 + quantity);
+                PendingOrder pending = PendingOrder.of(1, DATE, order, PAYMENT);
+                assertEquals(order.discount().rupiah(), pending.discount(), "tier " + tier + ", quantity " + quantity);
+            }
+        }
+    }
+
+    @Test
+    void fullyDiscountedItemsStillAddUp() {
+        // Nothing left after item promotions to share the tier discount by; the last line takes it
+        OrderSnapshot order = snapshot(List.of(item(1, 5000, 2, 10000), item(2, 2500, 1, 2500)), 0);
+        PendingOrder pending = PendingOrder.of(1, DATE, order, PAYMENT);
+
+        assertEquals(order.discount().rupiah(), pending.discount());
+    }
+}
@@ -0,0 +1,46 @@
+package database;
+
+import javafx.model.ReceiptLine;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ReceiptArchiveTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void receiptsReadBackAfterReopening() throws IOException {
+        List<ReceiptLine> first = List.of(new ReceiptLine(ReceiptLine.Kind.TITLE, "Order #1"));
+        List<ReceiptLine> second = List.of(new ReceiptLine(ReceiptLine.Kind.TITLE, "Order #2"));
+        ReceiptArchive archive = new ReceiptArchive(directory);
+        archive.append(1, DAY, first);
+        archive.append(2, DAY, second);
+
+        ReceiptArchive reopened = new ReceiptArchive(directory);
+        assertEquals(first, reopened.read(1));
+        assertEquals(second, reopened.read(2));
+        assertNull(reopened.read(3));
+    }
+
+    @Test
+    void lineBreaksInTextDoNotShiftLaterReceipts() throws IOException {
+        ReceiptArchive archive = new ReceiptArchive(directory);
+        archive.append(1, DAY, List.of(new ReceiptLine(ReceiptLine.Kind.TITLE, "Tart\rChoco\nlate\r\n")));
+        List<ReceiptLine> next = List.of(new ReceiptLine(ReceiptLine.Kind.TITLE, "Order #2"));
+        archive.append(2, DAY, next);
+
+        ReceiptArchive reopened = new ReceiptArchive(directory);
+        assertEquals(List.of(new ReceiptLine(ReceiptLine.Kind.TITLE, "Tart Choco late  ")), reopened.read(1));
+        assertEquals(next, reopened.read(2));
+    }
+}
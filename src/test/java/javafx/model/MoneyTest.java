@@ -0,0 +1,51 @@
+package javafx.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+    @Test
+    void percentRoundsHalfUp() {
+        assertEquals(Money.of(1235), Money.of(12345).percent(10));  // 1234.5
+        assertEquals(Money.of(1234), Money.of(12344).percent(10));  // 1234.4
+        assertEquals(Money.of(1), Money.of(10).percent(5));         // 0.5
+        assertEquals(Money.ZERO, Money.of(9).percent(5));           // 0.45
+        assertEquals(Money.of(19125), Money.of(127500).percent(15));
+        assertEquals(Money.ZERO, Money.of(127500).percent(0));
+        assertEquals(Money.of(127500), Money.of(127500).percent(100));
+    }
+
+    @Test
+    void percentOfNegativeAmountRoundsUp() {
+        assertEquals(Money.of(-1234), Money.of(-12345).percent(10));  // -1234.5
+        assertEquals(Money.of(-1235), Money.of(-12346).percent(10));  // -1234.6
+    }
+
+    @Test
+    void percentOverflowIsAnError() {
+        assertThrows(ArithmeticException.class, () -> Money.of(Long.MAX_VALUE / 2).percent(10));
+    }
+
+    @Test
+    void parseAcceptsWholeRupiah() {
+        assertEquals(Money.of(25000), Money.parse("25000"));
+        assertEquals(Money.of(25000), Money.parse(" 25,000 "));
+        assertEquals(Money.of(25000), Money.parse("25000.00"));
+        assertEquals(Money.ZERO, Money.parse("0"));
+    }
+
+    @Test
+    void parseRejectsFractions() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("25000.5"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("0.01"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1e-1"));
+    }
+
+    @Test
+    void parseRejectsText() {
+        assertThrows(NumberFormatException.class, () -> Money.parse("Rp 25000"));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+    }
+}
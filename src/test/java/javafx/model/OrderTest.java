@@ -0,0 +1,55 @@
+package javafx.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderTest {
+    private static long sumOfLines(OrderSnapshot snapshot) {
+        long sum = 0;
+        for (OrderSnapshot.Item item : snapshot.items()) {
+            sum += item.product().getPrice().rupiah() * item.quantity();
+        }
+        return sum;
+    }
+
+    @Test
+    void subtotalFollowsItems() {
+        Product tart = new Product(1, ProductType.TART, "A", Money.of(150000));
+        Product pudding = new Product(2, ProductType.PUDDING, "B", Money.of(20000));
+        Order order = new Order();
+        order.addItem(tart, 2);
+        order.addItem(pudding, 3);
+        order.setQuantity(tart, 1);
+        order.removeItem(pudding);
+
+        assertEquals(Money.of(150000), order.getSubtotal());
+        assertEquals(order.getSubtotal().rupiah(), sumOfLines(order.snapshot()));
+    }
+
+    @Test
+    void editedProductRepricesItsLine() {
+        Product before = new Product(1, ProductType.TART, "A", Money.of(100000));
+        Product after = new Product(1, ProductType.TART, "A", Money.of(150000));  // Same id, new price
+        Order order = new Order();
+        order.addItem(before, 1);
+        order.addItem(after, 1);
+
+        assertEquals(Money.of(300000), order.getSubtotal());
+        OrderSnapshot snapshot = order.snapshot();
+        assertEquals(Money.of(150000), snapshot.items().get(0).product().getPrice());
+        assertEquals(order.getSubtotal().rupiah(), sumOfLines(snapshot));
+    }
+
+    @Test
+    void removingEditedProductEmptiesSubtotal() {
+        Product before = new Product(1, ProductType.TART, "A", Money.of(100000));
+        Product after = new Product(1, ProductType.TART, "A", Money.of(150000));
+        Order order = new Order();
+        order.addItem(before, 2);
+        order.removeItem(after);
+
+        assertEquals(Money.ZERO, order.getSubtotal());
+        assertEquals(Money.ZERO, order.getTotal());
+    }
+}
@@ -0,0 +1,134 @@
+package javafx.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PricingPlanTest {
+    private static final LocalTime NOON = LocalTime.of(12, 0);
+
+    // The tiers migration 5 seeds, which reproduce the old hard-coded 5% and 10% discounts
+    private static final Promotion TIER_5 = tier(1, 300000, 5);
+    private static final Promotion TIER_10 = tier(2, 500000, 10);
+
+    private static final Product TART = new Product(1, ProductType.TART, "A", Money.of(150000));
+    private static final Product PUDDING = new Product(2, ProductType.PUDDING, "B", Money.of(20000));
+
+    private static Promotion tier(long id, long minSubtotal, int percent) {
+        return new Promotion(id, percent + "% off", Promotion.Kind.ORDER_TIER, null, 0, Money.of(minSubtotal),
+                percent, 0, 0, null, null);
+    }
+
+    private static Promotion percentOff(long id, ProductType type, long productId, int percent,
+                                        LocalTime start, LocalTime end) {
+        return new Promotion(id, percent + "% off items", Promotion.Kind.PERCENT_OFF, type, productId, Money.ZERO,
+                percent, 0, 0, start, end);
+    }
+
+    private static Promotion buyGetFree(long id, long productId, int buy, int free) {
+        return new Promotion(id, "Buy " + buy + " get " + free, Promotion.Kind.BUY_GET_FREE, null, productId,
+                Money.ZERO, 0, buy, free, null, null);
+    }
+
+    @Test
+    void seededTiersMatchTheOldDiscounts() {
+        PricingPlan plan = new PricingPlan(List.of(TIER_5, TIER_10));
+
+        assertNull(plan.orderDiscount(Money.of(299999), NOON));
+        assertEquals(new PricingPlan.Applied(TIER_5, Money.of(15000)), plan.orderDiscount(Money.of(300000), NOON));
+        assertEquals(new PricingPlan.Applied(TIER_5, Money.of(25000)), plan.orderDiscount(Money.of(499999), NOON));
+        assertEquals(new PricingPlan.Applied(TIER_10, Money.of(50000)), plan.orderDiscount(Money.of(500000), NOON));
+        assertEquals(new PricingPlan.Applied(TIER_10, Money.of(127550)), plan.orderDiscount(Money.of(1275500), NOON));
+    }
+
+    @Test
+    void highestTierReachedApplies() {
+        // Listed lowest first; the plan sorts them
+        PricingPlan plan = new PricingPlan(List.of(TIER_5, TIER_10, tier(3, 1000000, 15)));
+
+        assertEquals(TIER_10, plan.orderDiscount(Money.of(999999), NOON).promotion());
+        assertEquals(15, plan.orderDiscount(Money.of(1000000), NOON).promotion().percent());
+    }
+
+    @Test
+    void buyGetFreeCountsWholeGroups() {
+        Promotion buy2Get1 = buyGetFree(1, TART.getId(), 2, 1);
+
+        assertEquals(Money.ZERO, buy2Get1.lineDiscount(TART.getPrice(), 2));
+        assertEquals(Money.of(150000), buy2Get1.lineDiscount(TART.getPrice(), 3));
+        assertEquals(Money.of(150000), buy2Get1.lineDiscount(TART.getPrice(), 5));
+        assertEquals(Money.of(300000), buy2Get1.lineDiscount(TART.getPrice(), 6));
+    }
+
+    @Test
+    void ruleGivingNoDiscountIsNotApplied() {
+        PricingPlan plan = new PricingPlan(List.of(buyGetFree(1, TART.getId(), 2, 1)));
+
+        assertNull(plan.lineDiscount(TART, 2, NOON));
+        assertNull(plan.lineDiscount(PUDDING, 3, NOON));
+    }
+
+    @Test
+    void happyHourPastMidnight() {
+        Promotion lateNight = percentOff(1, null, 0, 20, LocalTime.of(22, 0), LocalTime.of(2, 0));
+
+        assertTrue(lateNight.isActiveAt(LocalTime.of(22, 0)));
+        assertTrue(lateNight.isActiveAt(LocalTime.of(23, 59)));
+        assertTrue(lateNight.isActiveAt(LocalTime.MIDNIGHT));
+        assertTrue(lateNight.isActiveAt(LocalTime.of(1, 59)));
+        assertFalse(lateNight.isActiveAt(LocalTime.of(2, 0)));
+        assertFalse(lateNight.isActiveAt(NOON));
+        assertFalse(lateNight.isActiveAt(LocalTime.of(21, 59)));
+    }
+
+    @Test
+    void happyHourWithinTheDay() {
+        Promotion afternoon = percentOff(1, null, 0, 20, LocalTime.of(14, 0), LocalTime.of(16, 0));
+        PricingPlan plan = new PricingPlan(List.of(afternoon));
+
+        assertNull(plan.lineDiscount(TART, 1, NOON));
+        assertEquals(Money.of(30000), plan.lineDiscount(TART, 1, LocalTime.of(14, 0)).discount());
+        assertNull(plan.lineDiscount(TART, 1, LocalTime.of(16, 0)));
+    }
+
+    @Test
+    void bestItemRuleWins() {
+        Promotion byType = percentOff(1, ProductType.TART, 0, 10, null, null);        // Rp 45,000 on 3
+        Promotion byProduct = buyGetFree(2, TART.getId(), 2, 1);                       // Rp 150,000 on 3
+        Promotion everything = percentOff(3, null, 0, 5, null, null);                  // Rp 22,500 on 3
+        PricingPlan plan = new PricingPlan(List.of(byType, byProduct, everything));
+
+        assertEquals(new PricingPlan.Applied(byProduct, Money.of(150000)), plan.lineDiscount(TART, 3, NOON));
+        // Too few for the free item; the type rule beats the rule for every product
+        assertEquals(new PricingPlan.Applied(byType, Money.of(30000)), plan.lineDiscount(TART, 2, NOON));
+        assertEquals(new PricingPlan.Applied(everything, Money.of(1000)), plan.lineDiscount(PUDDING, 1, NOON));
+    }
+
+    @Test
+    void orderTierIsTakenAfterItemDiscounts() {
+        // Rp 450,000 of tarts less a free one is Rp 300,000: the 5% tier, not 10%
+        PricingPlan plan = new PricingPlan(List.of(TIER_5, TIER_10, buyGetFree(3, TART.getId(), 2, 1)));
+        Order order = new Order(plan);
+        order.addItem(TART, 3);
+        order.addItem(PUDDING, 1);
+
+        assertEquals(Money.of(470000), order.getSubtotal());
+        assertEquals(Money.of(150000), order.getItemDiscount(TART));
+        assertEquals(Money.of(16000), order.getOrderDiscount());  // 5% of Rp 320,000
+        assertEquals(Money.of(166000), order.getDiscount());
+        assertEquals(Money.of(304000), order.getTotal());
+    }
+
+    @Test
+    void emptyPlanGivesNoDiscounts() {
+        assertTrue(PricingPlan.NONE.isEmpty());
+        assertNull(PricingPlan.NONE.lineDiscount(TART, 10, NOON));
+        assertNull(PricingPlan.NONE.orderDiscount(Money.of(1000000), NOON));
+    }
+}